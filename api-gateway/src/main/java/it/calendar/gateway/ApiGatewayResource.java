@@ -1,8 +1,11 @@
 package it.calendar.gateway;
 
+import io.smallrye.mutiny.Uni;
 import it.calendar.gateway.client.AuthServiceClient;
 import it.calendar.gateway.client.EventServiceClient;
+import it.calendar.gateway.client.UpstreamGuards;
 import it.calendar.gateway.dto.auth.AuthRequest;
+import it.calendar.gateway.dto.auth.RefreshRequest;
 import it.calendar.gateway.dto.auth.RegisterRequest;
 import it.calendar.gateway.dto.event.CategoryDto;
 import it.calendar.gateway.dto.event.EventDto;
@@ -14,9 +17,24 @@ import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.jboss.logging.Logger;
 
+import java.net.URI;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Inoltra le richieste del frontend all'auth-service e all'event-service.
+ *
+ * I client REST sono asincroni e gli endpoint restituiscono Uni<Response>, quindi girano sul
+ * thread di I/O: mentre un servizio a valle risponde lentamente nessun thread resta bloccato
+ * ad aspettarlo. Le letture identiche in corso nello stesso momento condividono una sola chiamata
+ * all'event-service (RequestCoalescer). Ogni chiamata passa dalle protezioni del proprio servizio
+ * (UpstreamGuards): un servizio lento o fermo costa al gateway solo risposte 503 immediate.
+ */
 @Path("/api")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
@@ -32,107 +50,212 @@ public class ApiGatewayResource {
     @RestClient
     EventServiceClient eventServiceClient;
     
+    @Inject
+    JsonWebToken jwt;
+    
+    @Inject
+    CalendarResponseCache responseCache;
+    
+    @Inject
+    RequestCoalescer coalescer;
+    
+    @Inject
+    UpstreamGuards guards;
+    
+    @Context
+    UriInfo uriInfo;
+    
     // Endpoint autenticazione
     @POST
     @Path("/auth/register")
     @PermitAll
-    public Response register(RegisterRequest request) {
+    public Uni<Response> register(RegisterRequest request) {
         LOG.debug("Registering user: " + request.getUsername());
-        return authServiceClient.register(request);
+        return guards.authService(() -> authServiceClient.register(request));
     }
     
     @POST
     @Path("/auth/login")
     @PermitAll
-    public Response login(AuthRequest request) {
+    public Uni<Response> login(AuthRequest request) {
         LOG.debug("Login attempt for user: " + request.getUsername());
-        return authServiceClient.login(request);
+        return guards.authService(() -> authServiceClient.login(request));
+    }
+    
+    @POST
+    @Path("/auth/refresh")
+    @PermitAll
+    public Uni<Response> refresh(RefreshRequest request) {
+        LOG.debug("Refreshing access token");
+        return guards.authService(() -> authServiceClient.refresh(request));
+    }
+    
+    @GET
+    @Path("/auth/availability")
+    @PermitAll
+    public Uni<Response> checkAvailability(@QueryParam("username") String username,
+                                        @QueryParam("email") String email) {
+        LOG.debug("Checking availability for username: " + username + ", email: " + email);
+        return guards.authService(() -> authServiceClient.checkAvailability(username, email));
     }
     
     // Endpoint categorie
     @GET
     @Path("/categories")
     @RolesAllowed("user")
-    public Response getAllCategories(@Context HttpHeaders headers) {
+    public Uni<Response> getAllCategories(@Context HttpHeaders headers) {
         String authHeader = headers.getHeaderString(HttpHeaders.AUTHORIZATION);
         LOG.debug("Fetching all categories with auth header: " + (authHeader != null ? "present" : "missing"));
-        return eventServiceClient.getAllCategories(authHeader);
+        Long userId = currentUserId();
+        String request = requestKey();
+        // Le risposte in cache vengono rivalidate con l'ETag dell'event-service
+        return responseCache.get(userId, "categories", headers.getHeaderString(HttpHeaders.IF_NONE_MATCH),
+                etag -> coalescer.coalesce(userId, request + " " + etag,
+                        () -> guards.eventService(() -> eventServiceClient.getAllCategories(authHeader, etag))));
     }
     
     @POST
     @Path("/categories")
     @RolesAllowed("user")
-    public Response createCategory(@Context HttpHeaders headers, CategoryDto categoryDto) {
+    public Uni<Response> createCategory(@Context HttpHeaders headers, CategoryDto categoryDto) {
         String authHeader = headers.getHeaderString(HttpHeaders.AUTHORIZATION);
         LOG.debug("Creating category: " + categoryDto.getName() + " with auth header: " + (authHeader != null ? "present" : "missing"));
         
-        try {
-            Response response = eventServiceClient.createCategory(authHeader, categoryDto);
-            return response;
-        } catch (Exception e) {
-            LOG.error("Error creating category", e);
-            return Response.serverError().entity("Error creating category: " + e.getMessage()).build();
-        }
+        return invalidating(() -> guards.eventService(() -> eventServiceClient.createCategory(authHeader, categoryDto)))
+                .onFailure().recoverWithItem(e -> {
+                    LOG.error("Error creating category", e);
+                    return Response.serverError().entity("Error creating category: " + e.getMessage()).build();
+                });
     }
     
     @PUT
     @Path("/categories/{id}")
     @RolesAllowed("user")
-    public Response updateCategory(@Context HttpHeaders headers, 
-                               @PathParam("id") Long id, 
-                               CategoryDto categoryDto) {
+    public Uni<Response> updateCategory(@Context HttpHeaders headers, 
+                                    @PathParam("id") Long id, 
+                                    CategoryDto categoryDto) {
         String authHeader = headers.getHeaderString(HttpHeaders.AUTHORIZATION);
         LOG.debug("Updating category: " + id);
-        return eventServiceClient.updateCategory(authHeader, id, categoryDto);
+        return invalidating(() -> guards.eventService(() -> eventServiceClient.updateCategory(authHeader, id, categoryDto)));
     }
     
     @DELETE
     @Path("/categories/{id}")
     @RolesAllowed("user")
-    public Response deleteCategory(@Context HttpHeaders headers, @PathParam("id") Long id) {
+    public Uni<Response> deleteCategory(@Context HttpHeaders headers, @PathParam("id") Long id) {
         String authHeader = headers.getHeaderString(HttpHeaders.AUTHORIZATION);
         LOG.debug("Deleting category: " + id);
-        return eventServiceClient.deleteCategory(authHeader, id);
+        return invalidating(() -> guards.eventService(() -> eventServiceClient.deleteCategory(authHeader, id)));
     }
     
     // Endpoint eventi
     @GET
     @Path("/events")
     @RolesAllowed("user")
-    public Response getAllEvents(@Context HttpHeaders headers,
-                              @QueryParam("start") String start,
-                              @QueryParam("end") String end) {
+    public Uni<Response> getAllEvents(@Context HttpHeaders headers,
+                                   @QueryParam("start") String start,
+                                   @QueryParam("end") String end,
+                                   @QueryParam("limit") Integer limit,
+                                   @QueryParam("after") String after,
+                                   @QueryParam("stream") Boolean stream) {
         String authHeader = headers.getHeaderString(HttpHeaders.AUTHORIZATION);
         LOG.debug("Fetching events with date range: " + (start != null ? start : "none") + " to " + (end != null ? end : "none"));
-        return eventServiceClient.getAllEvents(authHeader, start, end);
+        String ifNoneMatch = headers.getHeaderString(HttpHeaders.IF_NONE_MATCH);
+        
+        // Lo streaming non viene unito ad altre richieste, che dovrebbero attenderne la fine per leggerlo
+        if (Boolean.TRUE.equals(stream)) {
+            return guards.eventService(() -> eventServiceClient.getAllEvents(authHeader, ifNoneMatch, start, end, limit, after, stream));
+        }
+        Long userId = currentUserId();
+        String request = requestKey();
+        // Le pagine non passano dalla cache
+        if (limit != null || after != null) {
+            return coalescer.coalesce(userId, request + " " + ifNoneMatch,
+                    () -> guards.eventService(() -> eventServiceClient.getAllEvents(authHeader, ifNoneMatch, start, end, limit, after, stream)));
+        }
+        return responseCache.get(userId, "events|" + start + "|" + end, ifNoneMatch,
+                etag -> coalescer.coalesce(userId, request + " " + etag,
+                        () -> guards.eventService(
+                                () -> eventServiceClient.getAllEvents(authHeader, etag, start, end, null, null, null))));
+    }
+    
+    @GET
+    @Path("/events/freebusy")
+    @RolesAllowed("user")
+    public Uni<Response> getFreeBusy(@Context HttpHeaders headers,
+                                  @QueryParam("start") String start,
+                                  @QueryParam("end") String end) {
+        String authHeader = headers.getHeaderString(HttpHeaders.AUTHORIZATION);
+        LOG.debug("Fetching free/busy from " + start + " to " + end);
+        String ifNoneMatch = headers.getHeaderString(HttpHeaders.IF_NONE_MATCH);
+        return coalescer.coalesce(currentUserId(), requestKey() + " " + ifNoneMatch,
+                () -> guards.eventService(() -> eventServiceClient.getFreeBusy(authHeader, ifNoneMatch, start, end)));
     }
     
     @POST
     @Path("/events")
     @RolesAllowed("user")
-    public Response createEvent(@Context HttpHeaders headers, EventDto eventDto) {
+    public Uni<Response> createEvent(@Context HttpHeaders headers, EventDto eventDto,
+                                  @QueryParam("conflictPolicy") String conflictPolicy) {
         String authHeader = headers.getHeaderString(HttpHeaders.AUTHORIZATION);
         LOG.debug("Creating event: " + eventDto.getTitle());
-        return eventServiceClient.createEvent(authHeader, eventDto);
+        return invalidating(() -> guards.eventService(() -> eventServiceClient.createEvent(authHeader, eventDto, conflictPolicy)));
+    }
+    
+    @POST
+    @Path("/events/batch")
+    @RolesAllowed("user")
+    public Uni<Response> createEvents(@Context HttpHeaders headers, List<EventDto> eventDtos) {
+        String authHeader = headers.getHeaderString(HttpHeaders.AUTHORIZATION);
+        LOG.debug("Creating " + (eventDtos != null ? eventDtos.size() : 0) + " events in batch");
+        return invalidating(() -> guards.eventService(() -> eventServiceClient.createEvents(authHeader, eventDtos)));
     }
     
     @PUT
     @Path("/events/{id}")
     @RolesAllowed("user")
-    public Response updateEvent(@Context HttpHeaders headers, 
-                             @PathParam("id") Long id, 
-                             EventDto eventDto) {
+    public Uni<Response> updateEvent(@Context HttpHeaders headers, 
+                                  @PathParam("id") Long id, 
+                                  EventDto eventDto,
+                                  @QueryParam("conflictPolicy") String conflictPolicy) {
         String authHeader = headers.getHeaderString(HttpHeaders.AUTHORIZATION);
         LOG.debug("Updating event: " + id);
-        return eventServiceClient.updateEvent(authHeader, id, eventDto);
+        return invalidating(() -> guards.eventService(() -> eventServiceClient.updateEvent(authHeader, id, eventDto, conflictPolicy)));
     }
     
     @DELETE
     @Path("/events/{id}")
     @RolesAllowed("user")
-    public Response deleteEvent(@Context HttpHeaders headers, @PathParam("id") Long id) {
+    public Uni<Response> deleteEvent(@Context HttpHeaders headers, @PathParam("id") Long id) {
         String authHeader = headers.getHeaderString(HttpHeaders.AUTHORIZATION);
         LOG.debug("Deleting event: " + id);
-        return eventServiceClient.deleteEvent(authHeader, id);
+        return invalidating(() -> guards.eventService(() -> eventServiceClient.deleteEvent(authHeader, id)));
+    }
+    
+    /**
+     * Inoltra una modifica e poi svuota la cache delle letture dell'utente, anche se la chiamata fallisce.
+     * Le letture in corso vengono staccate prima di svuotare la cache: altrimenti una lettura arrivata
+     * nel mezzo potrebbe unirsi a una chiamata partita prima della modifica e salvarne il corpo nella cache nuova
+     */
+    private Uni<Response> invalidating(Supplier<Uni<Response>> call) {
+        Long userId = currentUserId();
+        return Uni.createFrom().deferred(call::get)
+                .onTermination().invoke(() -> {
+                    coalescer.invalidate(userId);
+                    responseCache.invalidate(userId);
+                });
+    }
+    
+    /**
+     * Chiave di una lettura per RequestCoalescer: percorso e query della richiesta.
+     * Calcolata durante la richiesta, perché le rivalidazioni in background arrivano dopo la risposta
+     */
+    private String requestKey() {
+        URI uri = uriInfo.getRequestUri();
+        return uri.getRawPath() + "?" + uri.getRawQuery();
+    }
+    
+    private Long currentUserId() {
+        return Long.parseLong(jwt.getClaim("userId"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+package it.calendar.gateway;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache per utente delle risposte di lettura del calendario (eventi per intervallo e categorie),
+ * conservate come byte già serializzati insieme all'ETag dell'event-service.
+ *
+ * Una risposta resta fresca per freshFor e viene servita senza chiamare l'event-service. Per i
+ * successivi staleFor viene ancora servita subito, mentre una sola richiesta in background la
+ * rivalida con If-None-Match (stale-while-revalidate): le letture non aspettano un event-service
+ * lento o irraggiungibile. Le modifiche inoltrate dal gateway svuotano la cache dell'utente.
+ *
+ * Le chiamate all'event-service sono asincrone: né le letture né le rivalidazioni in background
+ * occupano un thread mentre aspettano la risposta.
+ */
+@ApplicationScoped
+public class CalendarResponseCache {
+
+    private static final Logger LOG = Logger.getLogger(CalendarResponseCache.class);
+
+    // Oltre questo numero di richieste distinte (es. finestre di date) la cache dell'utente viene svuotata
+    private static final int MAX_ENTRIES_PER_USER = 64;
+
+    @ConfigProperty(name = "gateway.response-cache.fresh-for", defaultValue = "10S")
+    Duration freshFor;
+
+    @ConfigProperty(name = "gateway.response-cache.stale-for", defaultValue = "60S")
+    Duration staleFor;
+
+    @ConfigProperty(name = "gateway.response-cache.max-users", defaultValue = "10000")
+    long maxUsers;
+
+    LongSupplier clock = System::nanoTime;
+
+    // Dove parte la rivalidazione in background: la chiamata è asincrona, basta il thread corrente
+    Executor executor = Runnable::run;
+
+    private Cache<Long, Map<String, CachedResponse>> byUser;
+
+    @PostConstruct
+    void init() {
+        byUser = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(freshFor.plus(staleFor))
+                .build();
+    }
+
+    /**
+     * Risposta serializzata dell'event-service
+     */
+    static final class CachedResponse {
+
+        final byte[] body;
+        final String contentType;
+        final String etag;
+        final String cacheControl;
+        volatile long validatedAt;
+        final AtomicBoolean revalidating = new AtomicBoolean();
+
+        CachedResponse(byte[] body, String contentType, String etag, String cacheControl, long validatedAt) {
+            this.body = body;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.cacheControl = cacheControl;
+            this.validatedAt = validatedAt;
+        }
+    }
+
+    /**
+     * Restituisce la risposta a una lettura, dalla cache quando possibile
+     *
+     * @param userId ID dell'utente
+     * @param key Richiesta tra quelle dell'utente (risorsa e parametri)
+     * @param ifNoneMatch If-None-Match del client, può essere null
+     * @param loader Chiamata all'event-service: riceve l'ETag da rivalidare, null per una lettura completa
+     * @return La risposta da inoltrare al client
+     */
+    public Uni<Response> get(Long userId, String key, String ifNoneMatch, Function<String, Uni<Response>> loader) {
+        // Un'invalidazione sostituisce la mappa: le letture ancora in corso scrivono in quella vecchia
+        Map<String, CachedResponse> responses = byUser.get(userId, id -> new ConcurrentHashMap<>());
+        CachedResponse cached = responses.get(key);
+        long now = clock.getAsLong();
+
+        if (cached != null) {
+            long age = now - cached.validatedAt;
+            if (age < freshFor.toNanos()) {
+                return Uni.createFrom().item(serve(cached, ifNoneMatch, now));
+            }
+            if (age < freshFor.plus(staleFor).toNanos()) {
+                revalidateInBackground(responses, key, cached, loader);
+                return Uni.createFrom().item(serve(cached, ifNoneMatch, now));
+            }
+        }
+
+        return call(loader, cached != null ? cached.etag : null).map(response -> {
+            CachedResponse stored = store(responses, key, cached, response);
+            return stored != null ? serve(stored, ifNoneMatch, clock.getAsLong()) : response;
+        });
+    }
+
+    /**
+     * Elimina le risposte memorizzate per un utente, da chiamare dopo ogni modifica dei suoi dati
+     */
+    public void invalidate(Long userId) {
+        byUser.invalidate(userId);
+    }
+
+    private void revalidateInBackground(Map<String, CachedResponse> responses, String key,
+                                        CachedResponse cached, Function<String, Uni<Response>> loader) {
+        if (!cached.revalidating.compareAndSet(false, true)) {
+            return;
+        }
+
+        call(loader, cached.etag)
+                .runSubscriptionOn(executor)
+                .onTermination().invoke(() -> cached.revalidating.set(false))
+                .subscribe().with(response -> {
+                    if (store(responses, key, cached, response) == null) {
+                        LOG.debug("Revalidation of " + key + " returned status " + response.getStatus());
+                        response.close();
+                    }
+                }, failure -> {
+                    // La risposta in cache resta valida fino alla fine della finestra stale
+                    LOG.debug("Revalidation of " + key + " failed: " + failure.getMessage());
+                });
+    }
+
+    // Anche un loader che lancia un'eccezione invece di restituire un fallimento produce una Uni fallita
+    private static Uni<Response> call(Function<String, Uni<Response>> loader, String etag) {
+        return Uni.createFrom().deferred(() -> loader.apply(etag));
+    }
+
+    // Aggiorna la cache con una risposta dell'event-service; null se la risposta non va memorizzata
+    private CachedResponse store(Map<String, CachedResponse> responses, String key,
+                                 CachedResponse cached, Response response) {
+        if (response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode() && cached != null) {
+            response.close();
+            cached.validatedAt = clock.getAsLong();
+            return cached;
+        }
+        if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+            return null;
+        }
+
+        CachedResponse fresh = new CachedResponse(response.readEntity(byte[].class),
+                response.getHeaderString(HttpHeaders.CONTENT_TYPE), response.getHeaderString(HttpHeaders.ETAG),
+                response.getHeaderString(HttpHeaders.CACHE_CONTROL), clock.getAsLong());
+
+        if (responses.size() >= MAX_ENTRIES_PER_USER && !responses.containsKey(key)) {
+            responses.clear();
+        }
+        responses.put(key, fresh);
+        return fresh;
+    }
+
+    private static Response serve(CachedResponse cached, String ifNoneMatch, long now) {
+        Response.ResponseBuilder builder = matches(ifNoneMatch, cached.etag)
+                ? Response.notModified()
+                : Response.ok(cached.body, cached.contentType);
+
+        return builder
+                .header(HttpHeaders.ETAG, cached.etag)
+                .header(HttpHeaders.CACHE_CONTROL, cached.cacheControl)
+                .header("Age", TimeUnit.NANOSECONDS.toSeconds(now - cached.validatedAt))
+                .build();
+    }
+
+    // Confronto debole di If-None-Match (RFC 9110): il prefisso W/ viene ignorato
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,134 @@
+package it.calendar.gateway;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Unisce le letture identiche in corso nello stesso momento (single-flight): più schede aperte
+ * o un frontend che ripete la richiesta al montaggio producono una sola chiamata all'event-service.
+ *
+ * La prima richiesta per una chiave esegue la chiamata; le altre che arrivano prima della
+ * risposta ne ricevono una copia (stato, header e corpo già letto), oppure lo stesso errore.
+ * Le chiamate risparmiate sono contate in gateway.coalesced.requests.
+ *
+ * Una modifica dell'utente stacca le sue letture in corso (invalidate): chi arriva dopo la
+ * modifica non riceve una risposta letta prima, che finirebbe anche nella cache del gateway.
+ */
+@ApplicationScoped
+public class RequestCoalescer {
+
+    // Header legati alla singola connessione, ricalcolati per ogni risposta
+    private static final Set<String> HOP_BY_HOP = Set.of("content-length", "transfer-encoding", "connection", "keep-alive");
+
+    @Inject
+    MeterRegistry registry;
+
+    // Chiave: utente e richiesta
+    private final Map<String, CompletableFuture<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private Counter saved;
+
+    @PostConstruct
+    void init() {
+        saved = Counter.builder("gateway.coalesced.requests")
+                .description("Upstream calls saved by joining an identical request in flight")
+                .register(registry);
+    }
+
+    /**
+     * Risposta di una lettura già letta dall'event-service, da cui ogni richiesta unita ricava la propria
+     */
+    static final class SharedResponse {
+
+        final int status;
+        final Map<String, List<String>> headers;
+        final byte[] body;
+
+        SharedResponse(Response response) {
+            this.status = response.getStatus();
+            this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            MultivaluedMap<String, String> upstreamHeaders = response.getStringHeaders();
+            upstreamHeaders.forEach((name, values) -> {
+                if (!HOP_BY_HOP.contains(name.toLowerCase())) {
+                    headers.put(name, List.copyOf(values));
+                }
+            });
+            this.body = response.hasEntity() ? body(response) : null;
+            response.close();
+        }
+
+        // Le risposte create dal gateway stesso (es. il fallback di UpstreamGuards) hanno un corpo testuale
+        private static byte[] body(Response response) {
+            return response.getEntity() instanceof String
+                    ? ((String) response.getEntity()).getBytes(StandardCharsets.UTF_8)
+                    : response.readEntity(byte[].class);
+        }
+
+        Response toResponse() {
+            Response.ResponseBuilder builder = Response.status(status).entity(body);
+            headers.forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+            return builder.build();
+        }
+    }
+
+    /**
+     * Esegue una lettura, o si unisce a quella identica già in corso
+     *
+     * @param userId ID dell'utente
+     * @param request Richiesta: percorso, query e ETag inoltrato all'event-service
+     * @param call Chiamata all'event-service
+     * @return La risposta per questa richiesta
+     */
+    public Uni<Response> coalesce(Long userId, String request, Supplier<Uni<Response>> call) {
+        String key = userId + " " + request;
+        CompletableFuture<SharedResponse> flight = new CompletableFuture<>();
+        CompletableFuture<SharedResponse> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            saved.increment();
+            return Uni.createFrom().completionStage(existing).map(SharedResponse::toResponse);
+        }
+
+        // La chiamata prosegue anche se il client che l'ha avviata si disconnette: altri la aspettano
+        Uni.createFrom().deferred(call::get)
+                .map(SharedResponse::new)
+                .subscribe().with(response -> {
+                    inFlight.remove(key, flight);
+                    flight.complete(response);
+                }, failure -> {
+                    inFlight.remove(key, flight);
+                    flight.completeExceptionally(failure);
+                });
+        return Uni.createFrom().completionStage(flight).map(SharedResponse::toResponse);
+    }
+
+    /**
+     * Stacca le letture in corso dell'utente, da chiamare al termine di ogni sua modifica: le
+     * richieste già unite ricevono comunque la loro risposta, le successive ripartono da capo
+     */
+    public void invalidate(Long userId) {
+        String prefix = userId + " ";
+        inFlight.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+    
+    /**
+     * Numero di chiamate all'event-service risparmiate dall'avvio
+     */
+    public long savedCount() {
+        return (long) saved.count();
+    }
+}
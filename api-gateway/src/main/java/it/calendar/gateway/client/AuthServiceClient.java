@@ -1,24 +1,38 @@
 package it.calendar.gateway.client;
 
+import io.smallrye.mutiny.Uni;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import it.calendar.gateway.dto.auth.*;
 
 @Path("/auth")
 @RegisterRestClient(configKey = "auth-service")
+@RegisterProvider(UpstreamPoolOptions.AuthService.class)
 public interface AuthServiceClient {
     
     @POST
     @Path("/register")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    Response register(RegisterRequest request);
+    Uni<Response> register(RegisterRequest request);
     
     @POST
     @Path("/login")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    Response login(AuthRequest request);
+    Uni<Response> login(AuthRequest request);
+    
+    @POST
+    @Path("/refresh")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    Uni<Response> refresh(RefreshRequest request);
+    
+    @GET
+    @Path("/availability")
+    @Produces(MediaType.APPLICATION_JSON)
+    Uni<Response> checkAvailability(@QueryParam("username") String username, @QueryParam("email") String email);
 }
\ No newline at end of file
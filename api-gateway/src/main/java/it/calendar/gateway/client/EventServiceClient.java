@@ -1,57 +1,83 @@
 package it.calendar.gateway.client;
 
+import io.smallrye.mutiny.Uni;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import it.calendar.gateway.dto.event.*;
+import java.util.List;
 
 @RegisterRestClient(configKey = "event-service")
+@RegisterProvider(InternalIdentityFilter.class)
+@RegisterProvider(UpstreamPoolOptions.EventService.class)
 public interface EventServiceClient {
     
     // Categorie
     @GET
     @Path("/categories")
     @Produces(MediaType.APPLICATION_JSON)
-    Response getAllCategories(@HeaderParam("Authorization") String token);
+    Uni<Response> getAllCategories(@HeaderParam("Authorization") String token,
+                                   @HeaderParam("If-None-Match") String ifNoneMatch);
     
     @POST
     @Path("/categories")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    Response createCategory(@HeaderParam("Authorization") String token, CategoryDto categoryDto);
+    Uni<Response> createCategory(@HeaderParam("Authorization") String token, CategoryDto categoryDto);
     
     @PUT
     @Path("/categories/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    Response updateCategory(@HeaderParam("Authorization") String token, @PathParam("id") Long id, CategoryDto categoryDto);
+    Uni<Response> updateCategory(@HeaderParam("Authorization") String token, @PathParam("id") Long id, CategoryDto categoryDto);
     
     @DELETE
     @Path("/categories/{id}")
-    Response deleteCategory(@HeaderParam("Authorization") String token, @PathParam("id") Long id);
+    Uni<Response> deleteCategory(@HeaderParam("Authorization") String token, @PathParam("id") Long id);
     
     // Eventi
     @GET
     @Path("/events")
     @Produces(MediaType.APPLICATION_JSON)
-    Response getAllEvents(@HeaderParam("Authorization") String token, 
-                         @QueryParam("start") String start, 
-                         @QueryParam("end") String end);
+    Uni<Response> getAllEvents(@HeaderParam("Authorization") String token, 
+                              @HeaderParam("If-None-Match") String ifNoneMatch,
+                              @QueryParam("start") String start, 
+                              @QueryParam("end") String end,
+                              @QueryParam("limit") Integer limit,
+                              @QueryParam("after") String after,
+                              @QueryParam("stream") Boolean stream);
+    
+    @GET
+    @Path("/events/freebusy")
+    @Produces(MediaType.APPLICATION_JSON)
+    Uni<Response> getFreeBusy(@HeaderParam("Authorization") String token,
+                             @HeaderParam("If-None-Match") String ifNoneMatch,
+                             @QueryParam("start") String start,
+                             @QueryParam("end") String end);
     
     @POST
     @Path("/events")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    Response createEvent(@HeaderParam("Authorization") String token, EventDto eventDto);
+    Uni<Response> createEvent(@HeaderParam("Authorization") String token, EventDto eventDto,
+                             @QueryParam("conflictPolicy") String conflictPolicy);
+    
+    @POST
+    @Path("/events/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    Uni<Response> createEvents(@HeaderParam("Authorization") String token, List<EventDto> eventDtos);
     
     @PUT
     @Path("/events/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    Response updateEvent(@HeaderParam("Authorization") String token, @PathParam("id") Long id, EventDto eventDto);
+    Uni<Response> updateEvent(@HeaderParam("Authorization") String token, @PathParam("id") Long id, EventDto eventDto,
+                             @QueryParam("conflictPolicy") String conflictPolicy);
     
     @DELETE
     @Path("/events/{id}")
-    Response deleteEvent(@HeaderParam("Authorization") String token, @PathParam("id") Long id);
+    Uni<Response> deleteEvent(@HeaderParam("Authorization") String token, @PathParam("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package it.calendar.gateway.client;
+
+import io.smallrye.jwt.auth.principal.JWTParser;
+import io.smallrye.jwt.auth.principal.ParseException;
+import it.calendar.common.security.InternalIdentity;
+import it.calendar.common.security.InternalIdentitySigner;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Sostituisce il JWT inoltrato all'event-service con l'identità già verificata dal gateway
+ * (header X-Calendar-Identity firmato con HMAC-SHA256 da InternalIdentitySigner di
+ * calendar-common), così l'event-service non ripete la verifica RSA del token.
+ *
+ * Il token viene letto con il JWTParser del gateway, che lo trova nella cache dei token
+ * verificati. Senza segreto configurato la richiesta viene inoltrata con il JWT come prima.
+ */
+@ApplicationScoped
+public class InternalIdentityFilter implements ClientRequestFilter {
+
+    private static final Logger LOG = Logger.getLogger(InternalIdentityFilter.class);
+
+    private static final String BEARER = "Bearer ";
+
+    @ConfigProperty(name = "calendar.internal-identity.secret")
+    Optional<String> secret;
+
+    @ConfigProperty(name = "calendar.internal-identity.lifetime", defaultValue = "30S")
+    Duration lifetime;
+
+    @Inject
+    JWTParser parser;
+
+    private InternalIdentitySigner signer;
+
+    @PostConstruct
+    void init() {
+        signer = secret.map(InternalIdentitySigner::new).orElse(null);
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        String authorization = requestContext.getHeaderString(HttpHeaders.AUTHORIZATION);
+        if (signer == null || authorization == null || !authorization.startsWith(BEARER)) {
+            return;
+        }
+
+        JsonWebToken token;
+        try {
+            token = parser.parse(authorization.substring(BEARER.length()));
+        } catch (ParseException e) {
+            // Il token viene inoltrato così com'è e l'event-service risponde 401
+            LOG.debug("Forwarding unverifiable token: " + e.getMessage());
+            return;
+        }
+
+        String userId = token.containsClaim("userId") ? token.getClaim("userId").toString() : token.getSubject();
+        // L'identità dura poco e mai oltre il token da cui deriva
+        long expiresAt = Math.min(token.getExpirationTime(), System.currentTimeMillis() / 1000 + lifetime.toSeconds());
+        InternalIdentity identity = new InternalIdentity(userId, List.copyOf(token.getGroups()), expiresAt);
+
+        requestContext.getHeaders().remove(HttpHeaders.AUTHORIZATION);
+        requestContext.getHeaders().putSingle(InternalIdentity.HEADER, signer.sign(identity));
+    }
+}
@@ -0,0 +1,265 @@
+package it.calendar.gateway.client;
+
+import io.quarkus.vertx.http.runtime.ExtendedQuarkusVertxHttpMetrics;
+import io.vertx.core.Vertx;
+import io.vertx.core.datagram.DatagramSocketOptions;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.WebSocket;
+import io.vertx.core.net.NetClientOptions;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.spi.metrics.ClientMetrics;
+import io.vertx.core.spi.metrics.DatagramSocketMetrics;
+import io.vertx.core.spi.metrics.EventBusMetrics;
+import io.vertx.core.spi.metrics.HttpClientMetrics;
+import io.vertx.core.spi.metrics.HttpServerMetrics;
+import io.vertx.core.spi.metrics.PoolMetrics;
+import io.vertx.core.spi.metrics.TCPMetrics;
+import io.vertx.core.spi.metrics.VertxMetrics;
+
+import java.util.function.Function;
+
+/**
+ * Metriche di Vert.x configurate da Quarkus (http.server.requests, http.client.requests, pool dei
+ * worker...), a cui si aggiungono i contatori dei pool verso i servizi a valle: per i client HTTP
+ * di UpstreamPoolOptions gli eventi arrivano sia al Pool sia alle metriche di Quarkus.
+ */
+final class PoolTrackingVertxMetrics implements VertxMetrics, ExtendedQuarkusVertxHttpMetrics {
+
+    private final VertxMetrics delegate;
+
+    // Pool del servizio per i client a valle, null per gli altri client
+    private final Function<HttpClientOptions, UpstreamConnectionMetrics.Pool> pools;
+
+    PoolTrackingVertxMetrics(VertxMetrics delegate, Function<HttpClientOptions, UpstreamConnectionMetrics.Pool> pools) {
+        this.delegate = delegate;
+        this.pools = pools;
+    }
+
+    @Override
+    public HttpClientMetrics<?, ?, ?, ?> createHttpClientMetrics(HttpClientOptions options) {
+        HttpClientMetrics<?, ?, ?, ?> quarkus = delegate.createHttpClientMetrics(options);
+        UpstreamConnectionMetrics.Pool pool = pools.apply(options);
+        if (pool == null) {
+            return quarkus;
+        }
+        return quarkus != null ? new Both(pool, quarkus) : pool;
+    }
+
+    @Override
+    public EventBusMetrics createEventBusMetrics() {
+        return delegate.createEventBusMetrics();
+    }
+
+    @Override
+    public HttpServerMetrics<?, ?, ?> createHttpServerMetrics(HttpServerOptions options, SocketAddress localAddress) {
+        return delegate.createHttpServerMetrics(options, localAddress);
+    }
+
+    @Override
+    public ClientMetrics<?, ?, ?, ?> createClientMetrics(SocketAddress remoteAddress, String type, String namespace) {
+        return delegate.createClientMetrics(remoteAddress, type, namespace);
+    }
+
+    @Override
+    public TCPMetrics<?> createNetServerMetrics(NetServerOptions options, SocketAddress localAddress) {
+        return delegate.createNetServerMetrics(options, localAddress);
+    }
+
+    @Override
+    public TCPMetrics<?> createNetClientMetrics(NetClientOptions options) {
+        return delegate.createNetClientMetrics(options);
+    }
+
+    @Override
+    public DatagramSocketMetrics createDatagramSocketMetrics(DatagramSocketOptions options) {
+        return delegate.createDatagramSocketMetrics(options);
+    }
+
+    @Override
+    public PoolMetrics<?> createPoolMetrics(String poolType, String poolName, int maxPoolSize) {
+        return delegate.createPoolMetrics(poolType, poolName, maxPoolSize);
+    }
+
+    @Override
+    public void vertxCreated(Vertx vertx) {
+        delegate.vertxCreated(vertx);
+    }
+
+    @Override
+    public boolean isMetricsEnabled() {
+        return delegate.isMetricsEnabled();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    // Usato da Quarkus per le metriche delle connessioni HTTP in ingresso
+    @Override
+    public ConnectionTracker getHttpConnectionTracker() {
+        return delegate instanceof ExtendedQuarkusVertxHttpMetrics
+                ? ((ExtendedQuarkusVertxHttpMetrics) delegate).getHttpConnectionTracker()
+                : NOOP_CONNECTION_TRACKER;
+    }
+
+    /**
+     * Inoltra ogni evento di un client a due metriche; gli oggetti restituiti da ciascuna
+     * (connessione, richiesta) viaggiano in coppia e tornano a quella che li ha creati
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class Both implements HttpClientMetrics<Object[], Object[], Object[], Object[]> {
+
+        private final HttpClientMetrics first;
+        private final HttpClientMetrics second;
+
+        Both(HttpClientMetrics<?, ?, ?, ?> first, HttpClientMetrics<?, ?, ?, ?> second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public ClientMetrics createEndpointMetrics(SocketAddress remoteAddress, int maxPoolSize) {
+            ClientMetrics firstEndpoint = first.createEndpointMetrics(remoteAddress, maxPoolSize);
+            ClientMetrics secondEndpoint = second.createEndpointMetrics(remoteAddress, maxPoolSize);
+            if (firstEndpoint == null || secondEndpoint == null) {
+                return firstEndpoint != null ? firstEndpoint : secondEndpoint;
+            }
+            return new BothEndpoints(firstEndpoint, secondEndpoint);
+        }
+
+        @Override
+        public void endpointConnected(ClientMetrics endpointMetric) {
+            if (endpointMetric instanceof BothEndpoints) {
+                first.endpointConnected(((BothEndpoints) endpointMetric).first);
+                second.endpointConnected(((BothEndpoints) endpointMetric).second);
+            }
+        }
+
+        @Override
+        public void endpointDisconnected(ClientMetrics endpointMetric) {
+            if (endpointMetric instanceof BothEndpoints) {
+                first.endpointDisconnected(((BothEndpoints) endpointMetric).first);
+                second.endpointDisconnected(((BothEndpoints) endpointMetric).second);
+            }
+        }
+
+        @Override
+        public Object[] connected(WebSocket webSocket) {
+            return new Object[] {first.connected(webSocket), second.connected(webSocket)};
+        }
+
+        @Override
+        public void disconnected(Object[] webSocketMetric) {
+            first.disconnected(webSocketMetric[0]);
+            second.disconnected(webSocketMetric[1]);
+        }
+
+        @Override
+        public Object[] connected(SocketAddress remoteAddress, String remoteName) {
+            return new Object[] {first.connected(remoteAddress, remoteName), second.connected(remoteAddress, remoteName)};
+        }
+
+        @Override
+        public void disconnected(Object[] socketMetric, SocketAddress remoteAddress) {
+            first.disconnected(socketMetric[0], remoteAddress);
+            second.disconnected(socketMetric[1], remoteAddress);
+        }
+
+        @Override
+        public void bytesRead(Object[] socketMetric, SocketAddress remoteAddress, long numberOfBytes) {
+            first.bytesRead(socketMetric[0], remoteAddress, numberOfBytes);
+            second.bytesRead(socketMetric[1], remoteAddress, numberOfBytes);
+        }
+
+        @Override
+        public void bytesWritten(Object[] socketMetric, SocketAddress remoteAddress, long numberOfBytes) {
+            first.bytesWritten(socketMetric[0], remoteAddress, numberOfBytes);
+            second.bytesWritten(socketMetric[1], remoteAddress, numberOfBytes);
+        }
+
+        @Override
+        public void exceptionOccurred(Object[] socketMetric, SocketAddress remoteAddress, Throwable t) {
+            first.exceptionOccurred(socketMetric[0], remoteAddress, t);
+            second.exceptionOccurred(socketMetric[1], remoteAddress, t);
+        }
+
+        @Override
+        public void close() {
+            first.close();
+            second.close();
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class BothEndpoints implements ClientMetrics<Object[], Object[], Object, Object> {
+
+        private final ClientMetrics first;
+        private final ClientMetrics second;
+
+        BothEndpoints(ClientMetrics first, ClientMetrics second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public Object[] enqueueRequest() {
+            return new Object[] {first.enqueueRequest(), second.enqueueRequest()};
+        }
+
+        @Override
+        public void dequeueRequest(Object[] taskMetric) {
+            first.dequeueRequest(taskMetric[0]);
+            second.dequeueRequest(taskMetric[1]);
+        }
+
+        @Override
+        public Object[] requestBegin(String uri, Object request) {
+            return new Object[] {first.requestBegin(uri, request), second.requestBegin(uri, request)};
+        }
+
+        @Override
+        public void requestEnd(Object[] requestMetric) {
+            first.requestEnd(requestMetric[0]);
+            second.requestEnd(requestMetric[1]);
+        }
+
+        @Override
+        public void requestEnd(Object[] requestMetric, long bytesWritten) {
+            first.requestEnd(requestMetric[0], bytesWritten);
+            second.requestEnd(requestMetric[1], bytesWritten);
+        }
+
+        @Override
+        public void responseBegin(Object[] requestMetric, Object response) {
+            first.responseBegin(requestMetric[0], response);
+            second.responseBegin(requestMetric[1], response);
+        }
+
+        @Override
+        public void requestReset(Object[] requestMetric) {
+            first.requestReset(requestMetric[0]);
+            second.requestReset(requestMetric[1]);
+        }
+
+        @Override
+        public void responseEnd(Object[] requestMetric) {
+            first.responseEnd(requestMetric[0]);
+            second.responseEnd(requestMetric[1]);
+        }
+
+        @Override
+        public void responseEnd(Object[] requestMetric, long bytesRead) {
+            first.responseEnd(requestMetric[0], bytesRead);
+            second.responseEnd(requestMetric[1], bytesRead);
+        }
+
+        @Override
+        public void close() {
+            first.close();
+            second.close();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package it.calendar.gateway.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.vertx.VertxOptionsCustomizer;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.metrics.MetricsOptions;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.spi.VertxMetricsFactory;
+import io.vertx.core.spi.metrics.ClientMetrics;
+import io.vertx.core.spi.metrics.HttpClientMetrics;
+import io.vertx.core.spi.metrics.VertxMetrics;
+import io.vertx.core.spi.observability.HttpRequest;
+import io.vertx.core.spi.observability.HttpResponse;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * Stato dei pool di connessioni verso i servizi a valle, esportato come gauge
+ * gateway.upstream.connections con i tag upstream e state: active (connessioni con una
+ * richiesta in corso), idle (aperte e libere) e pending (richieste in attesa di una connessione).
+ *
+ * I conteggi arrivano dalla SPI delle metriche di Vert.x per i client HTTP configurati da
+ * UpstreamPoolOptions. Questo bean avvolge le metriche già configurate da Quarkus, che restano
+ * attive per tutto il resto (PoolTrackingVertxMetrics). Con HTTP/2 più richieste condividono una connessione:
+ * le connessioni attive sono stimate come il minimo tra connessioni aperte e richieste in corso.
+ */
+@ApplicationScoped
+public class UpstreamConnectionMetrics implements VertxOptionsCustomizer {
+
+    private static final String METRICS_PREFIX = "gateway-upstream:";
+
+    private static final List<String> UPSTREAMS = List.of("event-service", "auth-service");
+
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    static String metricsName(String upstream) {
+        return METRICS_PREFIX + upstream;
+    }
+
+    @Override
+    public void accept(VertxOptions options) {
+        // I customizer dei bean vengono applicati dopo quelli delle estensioni: qui le opzioni
+        // contengono già la factory di Micrometer, se i binder di Vert.x sono attivi
+        MetricsOptions configured = options.getMetricsOptions();
+        VertxMetricsFactory quarkus = configured != null && configured.isEnabled() ? configured.getFactory() : null;
+
+        options.setMetricsOptions(new MetricsOptions().setEnabled(true).setFactory(vertxOptions ->
+                new PoolTrackingVertxMetrics(quarkus != null ? quarkus.metrics(vertxOptions) : new VertxMetrics() {},
+                        this::upstreamPool)));
+    }
+
+    private Pool upstreamPool(HttpClientOptions clientOptions) {
+        String name = clientOptions.getMetricsName();
+        return name != null && name.startsWith(METRICS_PREFIX)
+                ? pool(name.substring(METRICS_PREFIX.length()))
+                : null;
+    }
+
+    void registerGauges(@Observes StartupEvent event, MeterRegistry registry) {
+        for (String upstream : UPSTREAMS) {
+            Pool pool = pool(upstream);
+            gauge(registry, upstream, "active", pool, Pool::active);
+            gauge(registry, upstream, "idle", pool, Pool::idle);
+            gauge(registry, upstream, "pending", pool, Pool::pending);
+        }
+    }
+
+    /**
+     * Stato corrente del pool verso un servizio
+     */
+    public Pool pool(String upstream) {
+        return pools.computeIfAbsent(upstream, name -> new Pool());
+    }
+
+    private static void gauge(MeterRegistry registry, String upstream, String state, Pool pool, ToIntFunction<Pool> value) {
+        Gauge.builder("gateway.upstream.connections", pool, p -> value.applyAsInt(p))
+                .description("Connections from the gateway to an upstream service")
+                .tag("upstream", upstream)
+                .tag("state", state)
+                .register(registry);
+    }
+
+    /**
+     * Contatori di un pool, aggiornati da Vert.x sugli event loop del client
+     */
+    public static final class Pool implements HttpClientMetrics<AtomicBoolean, Object, Object, Object>,
+            ClientMetrics<AtomicBoolean, Object, HttpRequest, HttpResponse> {
+
+        private final AtomicInteger open = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        public int active() {
+            return Math.min(open.get(), inFlight.get());
+        }
+
+        public int idle() {
+            return Math.max(0, open.get() - inFlight.get());
+        }
+
+        public int pending() {
+            return waiting.get();
+        }
+
+        @Override
+        public ClientMetrics<AtomicBoolean, Object, HttpRequest, HttpResponse> createEndpointMetrics(
+                SocketAddress remoteAddress, int maxPoolSize) {
+            return this;
+        }
+
+        @Override
+        public Object connected(SocketAddress remoteAddress, String remoteName) {
+            open.incrementAndGet();
+            return null;
+        }
+
+        @Override
+        public void disconnected(Object socketMetric, SocketAddress remoteAddress) {
+            open.decrementAndGet();
+        }
+
+        @Override
+        public Object enqueueRequest() {
+            waiting.incrementAndGet();
+            return null;
+        }
+
+        @Override
+        public void dequeueRequest(Object taskMetric) {
+            waiting.decrementAndGet();
+        }
+
+        @Override
+        public AtomicBoolean requestBegin(String uri, HttpRequest request) {
+            inFlight.incrementAndGet();
+            return new AtomicBoolean();
+        }
+
+        @Override
+        public void responseEnd(AtomicBoolean requestMetric, long bytesRead) {
+            finished(requestMetric);
+        }
+
+        @Override
+        public void requestReset(AtomicBoolean requestMetric) {
+            finished(requestMetric);
+        }
+
+        // Una richiesta può chiudersi sia con la risposta sia con un reset: conta una volta sola
+        private void finished(AtomicBoolean requestMetric) {
+            if (requestMetric != null && requestMetric.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package it.calendar.gateway.client;
+
+import io.smallrye.faulttolerance.api.TypedGuard;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.util.TypeLiteral;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.faulttolerance.exceptions.FaultToleranceException;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Protezioni delle chiamate verso ciascun servizio a valle, una per servizio e condivisa da tutti
+ * i suoi endpoint, così un event-service lento non trascina con sé login e registrazioni:
+ *
+ * - gateway.upstream.<servizio>.timeout: durata massima di una chiamata, attesa nel bulkhead compresa
+ * - gateway.upstream.<servizio>.max-concurrent e max-queued: chiamate contemporanee e in coda
+ *   (bulkhead), oltre le quali la richiesta viene rifiutata subito
+ * - gateway.upstream.<servizio>.circuit-breaker.request-volume, failure-ratio e delay: se tra le
+ *   ultime request-volume chiamate la quota di fallimenti raggiunge failure-ratio il circuito si
+ *   apre e per delay le chiamate non partono nemmeno; poi alcune chiamate di prova lo richiudono
+ *
+ * Timeout, rifiuti, circuito aperto e servizio irraggiungibile diventano subito una risposta 503
+ * con Retry-After. Le risposte 4xx del servizio non contano come fallimenti.
+ */
+@ApplicationScoped
+public class UpstreamGuards {
+
+    private static final Logger LOG = Logger.getLogger(UpstreamGuards.class);
+
+    private TypedGuard<Uni<Response>> eventService;
+
+    private TypedGuard<Uni<Response>> authService;
+
+    @PostConstruct
+    void init() {
+        eventService = guard("event-service");
+        authService = guard("auth-service");
+    }
+
+    /**
+     * Esegue una chiamata all'event-service
+     */
+    public Uni<Response> eventService(Supplier<Uni<Response>> call) {
+        return eventService.get(call);
+    }
+
+    /**
+     * Esegue una chiamata all'auth-service
+     */
+    public Uni<Response> authService(Supplier<Uni<Response>> call) {
+        return authService.get(call);
+    }
+
+    private static TypedGuard<Uni<Response>> guard(String upstream) {
+        Config config = ConfigProvider.getConfig();
+        String prefix = "gateway.upstream." + upstream + ".";
+        Duration timeout = config.getOptionalValue(prefix + "timeout", Duration.class).orElse(Duration.ofSeconds(3));
+        Duration delay = config.getOptionalValue(prefix + "circuit-breaker.delay", Duration.class).orElse(Duration.ofSeconds(5));
+        long retryAfter = Math.max(1, delay.toSeconds());
+
+        return TypedGuard.create(new TypeLiteral<Uni<Response>>() {})
+                .withDescription(upstream)
+                .withFallback()
+                    .applyOn(List.of(FaultToleranceException.class, ProcessingException.class))
+                    .handler(failure -> {
+                        LOG.debug("Call to " + upstream + " rejected: " + failure);
+                        return Uni.createFrom().item(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, retryAfter)
+                                .type(MediaType.TEXT_PLAIN)
+                                .entity(upstream + " is unavailable")
+                                .build());
+                    })
+                    .done()
+                .withCircuitBreaker()
+                    .name(upstream)
+                    .when(failure -> !isClientError(failure))
+                    .requestVolumeThreshold(config.getOptionalValue(prefix + "circuit-breaker.request-volume", Integer.class).orElse(20))
+                    .failureRatio(config.getOptionalValue(prefix + "circuit-breaker.failure-ratio", Double.class).orElse(0.5))
+                    .delay(delay.toMillis(), ChronoUnit.MILLIS)
+                    .onStateChange(state -> LOG.warn("Circuit breaker for " + upstream + " is now " + state))
+                    .done()
+                .withTimeout()
+                    .duration(timeout.toMillis(), ChronoUnit.MILLIS)
+                    .done()
+                .withBulkhead()
+                    .limit(config.getOptionalValue(prefix + "max-concurrent", Integer.class).orElse(100))
+                    .queueSize(config.getOptionalValue(prefix + "max-queued", Integer.class).orElse(50))
+                    .done()
+                .withThreadOffload(false)
+                .build();
+    }
+
+    // Un 4xx è un errore della richiesta, non del servizio
+    private static boolean isClientError(Throwable failure) {
+        return failure instanceof WebApplicationException
+                && ((WebApplicationException) failure).getResponse().getStatus() < 500;
+    }
+}
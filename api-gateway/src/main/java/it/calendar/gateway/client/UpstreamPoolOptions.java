@@ -0,0 +1,65 @@
+package it.calendar.gateway.client;
+
+import io.vertx.core.http.HttpClientOptions;
+import jakarta.ws.rs.ext.ContextResolver;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import java.time.Duration;
+
+/**
+ * Opzioni del pool di connessioni verso un servizio a valle, in aggiunta a quelle del client
+ * REST (quarkus.rest-client.<servizio>.connection-pool-size, connection-ttl, keep-alive-enabled
+ * e http2):
+ *
+ * - gateway.upstream.<servizio>.max-pending: richieste in attesa di una connessione libera,
+ *   oltre le quali la chiamata fallisce subito invece di accodarsi (-1: coda illimitata)
+ * - gateway.upstream.<servizio>.http2-max-streams: richieste contemporanee su una connessione
+ *   HTTP/2 (-1: il limite annunciato dal servizio)
+ * - gateway.upstream.<servizio>.pool-cleaner-period: ogni quanto vengono chiuse le connessioni
+ *   inattive da più di connection-ttl
+ *
+ * Il client HTTP prende il nome del servizio, con cui UpstreamConnectionMetrics ne esporta lo stato.
+ */
+public abstract class UpstreamPoolOptions implements ContextResolver<HttpClientOptions> {
+
+    private final String upstream;
+
+    protected UpstreamPoolOptions(String upstream) {
+        this.upstream = upstream;
+    }
+
+    @Override
+    public HttpClientOptions getContext(Class<?> type) {
+        if (!HttpClientOptions.class.equals(type)) {
+            return null;
+        }
+
+        Config config = ConfigProvider.getConfig();
+        String prefix = "gateway.upstream." + upstream + ".";
+        Duration cleanerPeriod = config.getOptionalValue(prefix + "pool-cleaner-period", Duration.class)
+                .orElse(Duration.ofSeconds(1));
+
+        return new HttpClientOptions()
+                .setMetricsName(UpstreamConnectionMetrics.metricsName(upstream))
+                .setMaxWaitQueueSize(config.getOptionalValue(prefix + "max-pending", Integer.class).orElse(-1))
+                .setHttp2MultiplexingLimit(config.getOptionalValue(prefix + "http2-max-streams", Integer.class).orElse(-1))
+                .setPoolCleanerPeriod((int) cleanerPeriod.toMillis())
+                // Con http2=true su http:// la connessione parte subito in HTTP/2 (h2c), senza upgrade da HTTP/1.1
+                .setHttp2ClearTextUpgrade(false);
+    }
+
+    public static class EventService extends UpstreamPoolOptions {
+
+        public EventService() {
+            super("event-service");
+        }
+    }
+
+    public static class AuthService extends UpstreamPoolOptions {
+
+        public AuthService() {
+            super("auth-service");
+        }
+    }
+}
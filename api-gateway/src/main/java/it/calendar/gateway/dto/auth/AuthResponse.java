@@ -4,6 +4,8 @@ public class AuthResponse {
     
     private String message;
     private String token;
+    private String refreshToken;
+    private Long expiresIn;
     
     // Getters and setters
     public String getMessage() {
@@ -21,4 +23,20 @@ public class AuthResponse {
     public void setToken(String token) {
         this.token = token;
     }
+    
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+    
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+    
+    public Long getExpiresIn() {
+        return expiresIn;
+    }
+    
+    public void setExpiresIn(Long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
 }
\ No newline at end of file
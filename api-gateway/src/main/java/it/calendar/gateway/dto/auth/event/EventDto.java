@@ -3,6 +3,7 @@ package it.calendar.gateway.dto.event;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class EventDto {
     
@@ -24,6 +25,10 @@ public class EventDto {
     
     private String categoryColor;
     
+    private String recurrenceRule;
+    
+    private List<LocalDateTime> recurrenceExceptions;
+    
     // Getters and setters
     public Long getId() {
         return id;
@@ -88,4 +93,20 @@ public class EventDto {
     public void setCategoryColor(String categoryColor) {
         this.categoryColor = categoryColor;
     }
+    
+    public String getRecurrenceRule() {
+        return recurrenceRule;
+    }
+    
+    public void setRecurrenceRule(String recurrenceRule) {
+        this.recurrenceRule = recurrenceRule;
+    }
+    
+    public List<LocalDateTime> getRecurrenceExceptions() {
+        return recurrenceExceptions;
+    }
+    
+    public void setRecurrenceExceptions(List<LocalDateTime> recurrenceExceptions) {
+        this.recurrenceExceptions = recurrenceExceptions;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package it.calendar.gateway;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CalendarResponseCacheTest {
+
+    private static final Long USER_ID = 1L;
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final List<Runnable> background = new ArrayList<>();
+
+    private CalendarResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CalendarResponseCache();
+        cache.freshFor = Duration.ofSeconds(10);
+        cache.staleFor = Duration.ofSeconds(60);
+        cache.maxUsers = 100;
+        cache.init();
+        cache.clock = now::get;
+        cache.executor = background::add;
+    }
+
+    @Test
+    void testFreshResponseIsServedFromCache() {
+        AtomicInteger calls = new AtomicInteger();
+
+        Response first = get(null, etag -> ok("[1]", "\"v1\"", calls));
+        Response second = get(null, etag -> ok("[2]", "\"v2\"", calls));
+
+        assertEquals(1, calls.get());
+        assertArrayEquals(first.readEntity(byte[].class), second.readEntity(byte[].class));
+        assertEquals(304, get("\"v1\"", etag -> ok("[3]", "\"v3\"", calls)).getStatus());
+
+        cache.invalidate(USER_ID);
+        get(null, etag -> ok("[4]", "\"v4\"", calls));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testStaleResponseIsServedWhileRevalidating() {
+        AtomicInteger calls = new AtomicInteger();
+        get(null, etag -> ok("[1]", "\"v1\"", calls));
+
+        now.addAndGet(Duration.ofSeconds(20).toNanos());
+
+        // L'event-service non risponde: la risposta in cache viene servita e la rivalidazione fallisce in background
+        Response stale = get(null, etag -> Uni.createFrom().failure(new ProcessingException("connection refused")));
+        assertEquals(200, stale.getStatus());
+        assertEquals("20", stale.getHeaderString("Age"));
+        assertEquals(1, background.size());
+        background.remove(0).run();
+
+        // La rivalidazione successiva riceve 304 e rinfresca la risposta
+        get(null, etag -> {
+            assertEquals("\"v1\"", etag);
+            calls.incrementAndGet();
+            return Uni.createFrom().item(Response.notModified().build());
+        });
+        background.remove(0).run();
+        assertEquals("0", get(null, etag -> ok("[2]", "\"v2\"", calls)).getHeaderString("Age"));
+        assertEquals(2, calls.get());
+
+        // Oltre la finestra stale la lettura torna sincrona
+        now.addAndGet(Duration.ofSeconds(120).toNanos());
+        assertThrows(ProcessingException.class, () -> get(null, etag -> {
+            throw new ProcessingException("connection refused");
+        }));
+    }
+
+    private Response get(String ifNoneMatch, Function<String, Uni<Response>> loader) {
+        return cache.get(USER_ID, "events", ifNoneMatch, loader).await().indefinitely();
+    }
+
+    private static Uni<Response> ok(String body, String etag, AtomicInteger calls) {
+        calls.incrementAndGet();
+        return Uni.createFrom().item(
+                Response.ok(body.getBytes(), MediaType.APPLICATION_JSON_TYPE).header(HttpHeaders.ETAG, etag).build());
+    }
+}
@@ -0,0 +1,120 @@
+package it.calendar.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestCoalescerTest {
+
+    private static final Long USER_ID = 1L;
+
+    private static final String KEY = "/api/events?start=2025-01-01T00:00:00&end=2025-01-08T00:00:00 null";
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final List<UniEmitter<? super Response>> upstream = new ArrayList<>();
+
+    private RequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new RequestCoalescer();
+        coalescer.registry = new SimpleMeterRegistry();
+        coalescer.init();
+    }
+
+    @Test
+    void testConcurrentReadsShareOneUpstreamCall() {
+        List<Uni<Response>> readers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            readers.add(coalescer.coalesce(USER_ID, KEY, this::pending));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(4, coalescer.savedCount());
+
+        upstream.get(0).complete(Response.ok("[1]".getBytes(), MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ETAG, "\"v1\"")
+                .build());
+
+        // Ogni richiesta riceve la propria risposta con lo stesso corpo e gli stessi header
+        for (Uni<Response> reader : readers) {
+            Response response = reader.await().indefinitely();
+            assertEquals(200, response.getStatus());
+            assertEquals("\"v1\"", response.getHeaderString(HttpHeaders.ETAG));
+            assertArrayEquals("[1]".getBytes(), response.readEntity(byte[].class));
+        }
+
+        // Finita la chiamata, una nuova lettura torna all'event-service
+        coalescer.coalesce(USER_ID, KEY, this::pending);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testDifferentKeysAreNotShared() {
+        coalescer.coalesce(USER_ID, KEY, this::pending);
+        coalescer.coalesce(USER_ID, KEY.replace("null", "\"v1\""), this::pending);
+        coalescer.coalesce(2L, KEY, this::pending);
+
+        assertEquals(3, calls.get());
+        assertEquals(0, coalescer.savedCount());
+    }
+
+    @Test
+    void testFailureReachesEveryReader() {
+        Uni<Response> first = coalescer.coalesce(USER_ID, KEY, this::pending);
+        Uni<Response> second = coalescer.coalesce(USER_ID, KEY, this::pending);
+
+        upstream.get(0).fail(new ProcessingException("event-service down"));
+
+        assertThrows(ProcessingException.class, () -> first.await().indefinitely());
+        assertThrows(ProcessingException.class, () -> second.await().indefinitely());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testReadAfterWriteDoesNotJoinEarlierCall() {
+        Uni<Response> beforeWrite = coalescer.coalesce(USER_ID, KEY, this::pending);
+        Uni<Response> otherUser = coalescer.coalesce(2L, KEY, this::pending);
+
+        // La modifica termina mentre la lettura precedente è ancora in corso
+        coalescer.invalidate(USER_ID);
+        Uni<Response> afterWrite = coalescer.coalesce(USER_ID, KEY, this::pending);
+        coalescer.coalesce(2L, KEY, this::pending);
+
+        assertEquals(3, calls.get());
+        assertEquals(1, coalescer.savedCount());
+
+        // La chiamata staccata, terminando, non rimuove quella partita dopo la modifica
+        upstream.get(0).complete(Response.ok("[1]".getBytes(), MediaType.APPLICATION_JSON).build());
+        Uni<Response> joined = coalescer.coalesce(USER_ID, KEY, this::pending);
+        assertEquals(3, calls.get());
+
+        upstream.get(2).complete(Response.ok("[1,2]".getBytes(), MediaType.APPLICATION_JSON).build());
+        upstream.get(1).complete(Response.ok("[]".getBytes(), MediaType.APPLICATION_JSON).build());
+
+        assertArrayEquals("[1]".getBytes(), beforeWrite.await().indefinitely().readEntity(byte[].class));
+        assertArrayEquals("[1,2]".getBytes(), afterWrite.await().indefinitely().readEntity(byte[].class));
+        assertArrayEquals("[1,2]".getBytes(), joined.await().indefinitely().readEntity(byte[].class));
+        assertArrayEquals("[]".getBytes(), otherUser.await().indefinitely().readEntity(byte[].class));
+    }
+
+    private Uni<Response> pending() {
+        calls.incrementAndGet();
+        return Uni.createFrom().emitter(upstream::add);
+    }
+}
@@ -0,0 +1,163 @@
+package it.calendar.gateway;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.smallrye.jwt.build.Jwt;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput e latenza del gateway davanti a un event-service lento, simulato da un server
+ * locale che risponde dopo UPSTREAM_LATENCY_MILLIS, con un pool di worker piccolo.
+ *
+ * Non viene eseguito con i test normali (il nome non segue le convenzioni di surefire):
+ *
+ * {@code ./mvnw test -Dtest=SlowUpstreamBenchmark}
+ */
+@QuarkusTest
+@TestProfile(SlowUpstreamBenchmark.SlowUpstream.class)
+class SlowUpstreamBenchmark {
+
+    private static final Logger LOG = Logger.getLogger(SlowUpstreamBenchmark.class);
+
+    private static final int UPSTREAM_PORT = 18090;
+    private static final long UPSTREAM_LATENCY_MILLIS = 100;
+    private static final int WORKERS = 16;
+    private static final int CLIENTS = 128;
+    private static final long DURATION_MILLIS = 3_000;
+
+    public static class SlowUpstream implements QuarkusTestProfile {
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.rest-client.event-service.url", "http://localhost:" + UPSTREAM_PORT,
+                    "quarkus.rest-client.auth-service.url", "http://localhost:" + UPSTREAM_PORT,
+                    "quarkus.rest-client.event-service.connection-pool-size", String.valueOf(CLIENTS * 2),
+                    "quarkus.thread-pool.max-threads", String.valueOf(WORKERS));
+        }
+    }
+
+    @Inject
+    Vertx vertx;
+
+    @TestHTTPResource
+    URL baseUrl;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void benchmarkSlowUpstream() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        HttpServer upstream = vertx.createHttpServer()
+                .requestHandler(request -> {
+                    upstreamCalls.incrementAndGet();
+                    vertx.setTimer(UPSTREAM_LATENCY_MILLIS, id -> request.response()
+                            .putHeader("Content-Type", "application/json")
+                            .end("{\"busy\":[]}"));
+                })
+                .listen(UPSTREAM_PORT)
+                .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        try {
+            String token = Jwt.issuer("https://calendar-app.example.com")
+                    .subject("1")
+                    .groups(Set.of("user"))
+                    .claim("userId", "1")
+                    .sign();
+            // freebusy non passa dalla cache delle risposte: all'event-service arriva una chiamata
+            // per ogni gruppo di richieste identiche in corso nello stesso momento
+            HttpRequest freeBusy = HttpRequest.newBuilder(URI.create(baseUrl.toString().replaceAll("/$", "")
+                            + "/api/events/freebusy?start=2025-01-01T00:00:00&end=2025-01-08T00:00:00"))
+                    .header("Authorization", "Bearer " + token)
+                    .build();
+
+            // Prima misura solo per scaldare JIT e connessioni
+            measure(freeBusy);
+
+            upstreamCalls.set(0);
+            double[] result = measure(freeBusy);
+            LOG.infof("  freebusy, upstream +%d ms, %d workers, %d clients: %8.0f req/s, p50 %7.2f ms, p99 %7.2f ms, %d errors, %d upstream calls",
+                    UPSTREAM_LATENCY_MILLIS, WORKERS, CLIENTS, result[0], result[1], result[2], (long) result[3], upstreamCalls.get());
+        } finally {
+            upstream.close();
+        }
+    }
+
+    /**
+     * Esegue la richiesta da CLIENTS thread per DURATION_MILLIS. Restituisce richieste completate
+     * nella finestra al secondo, p50 e p99 in millisecondi e numero di risposte diverse da 200.
+     */
+    private double[] measure(HttpRequest request) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+        List<long[]> samples = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            long[] latencies = new long[100_000];
+            samples.add(latencies);
+            Thread thread = new Thread(() -> {
+                int n = 1;
+                while (System.nanoTime() < deadline && n < latencies.length - 1) {
+                    long started = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    long finished = System.nanoTime();
+                    latencies[++n] = finished - started;
+                    // I primi due elementi contano le richieste completate entro la finestra e gli errori
+                    if (finished < deadline) {
+                        latencies[0]++;
+                    }
+                    if (status != 200) {
+                        latencies[1]++;
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long completed = 0;
+        long errors = 0;
+        long[] all = new long[0];
+        for (long[] latencies : samples) {
+            completed += latencies[0];
+            errors += latencies[1];
+            long[] taken = Arrays.stream(latencies, 2, latencies.length).filter(l -> l > 0).toArray();
+            long[] merged = Arrays.copyOf(all, all.length + taken.length);
+            System.arraycopy(taken, 0, merged, all.length, taken.length);
+            all = merged;
+        }
+        Arrays.sort(all);
+
+        return new double[] {
+                completed * 1000.0 / DURATION_MILLIS,
+                all[all.length / 2] / 1e6,
+                all[all.length * 99 / 100] / 1e6,
+                errors};
+    }
+}
@@ -0,0 +1,110 @@
+package it.calendar.gateway.client;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.smallrye.jwt.build.Jwt;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pool di 4 connessioni verso un event-service simulato che risponde dopo 500 ms
+ */
+@QuarkusTest
+@TestProfile(UpstreamConnectionMetricsTest.SmallPool.class)
+class UpstreamConnectionMetricsTest {
+
+    private static final int UPSTREAM_PORT = 18091;
+
+    public static class SmallPool implements QuarkusTestProfile {
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.rest-client.event-service.url", "http://localhost:" + UPSTREAM_PORT,
+                    "quarkus.rest-client.auth-service.url", "http://localhost:" + UPSTREAM_PORT,
+                    "quarkus.rest-client.event-service.connection-pool-size", "4",
+                    "quarkus.rest-client.event-service.connection-ttl", "1000",
+                    "gateway.upstream.event-service.pool-cleaner-period", "100MS");
+        }
+    }
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    UpstreamConnectionMetrics metrics;
+
+    @Test
+    void testPoolStateIsExported() throws Exception {
+        HttpServer upstream = vertx.createHttpServer()
+                .requestHandler(request -> vertx.setTimer(500, id -> request.response()
+                        .putHeader("Content-Type", "application/json")
+                        .end("[]")))
+                .listen(UPSTREAM_PORT)
+                .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        try {
+            String token = Jwt.issuer("https://calendar-app.example.com")
+                    .subject("1")
+                    .groups(Set.of("user"))
+                    .claim("userId", "1")
+                    .sign();
+            UpstreamConnectionMetrics.Pool pool = metrics.pool("event-service");
+
+            List<CompletableFuture<Integer>> calls = new ArrayList<>();
+            // Intervalli diversi, perché le richieste identiche in corso condividono una sola chiamata
+            for (int i = 0; i < 10; i++) {
+                String end = String.format("2025-01-%02dT00:00:00", i + 2);
+                calls.add(CompletableFuture.supplyAsync(() -> given().auth().oauth2(token)
+                        .when().get("/api/events/freebusy?start=2025-01-01T00:00:00&end=" + end)
+                        .then().extract().statusCode()));
+            }
+
+            // Quattro richieste occupano il pool, le altre aspettano una connessione
+            awaitUntil(() -> pool.active() == 4 && pool.pending() == 6);
+            given().when().get("/q/metrics").then()
+                    .statusCode(200)
+                    .body(containsString("gateway_upstream_connections{state=\"pending\",upstream=\"event-service\"} 6.0"));
+
+            for (CompletableFuture<Integer> call : calls) {
+                assertEquals(200, call.get(10, TimeUnit.SECONDS));
+            }
+
+            // Le connessioni restano aperte per le richieste successive e vengono chiuse dopo connection-ttl
+            awaitUntil(() -> pool.active() == 0 && pool.idle() == 4);
+            awaitUntil(() -> pool.idle() == 0);
+            assertEquals(0, pool.pending());
+
+            // Le metriche HTTP di Quarkus restano attive, anche per le chiamate verso i servizi a valle
+            given().when().get("/q/metrics").then()
+                    .statusCode(200)
+                    .body(containsString("http_server_requests_seconds_count{method=\"GET\",outcome=\"SUCCESS\",status=\"200\",uri=\"/api/events/freebusy\"} 10.0"))
+                    .body(containsString("http_client_requests_seconds_count"));
+        } finally {
+            upstream.close();
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,105 @@
+package it.calendar.gateway.client;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.response.ExtractableResponse;
+import io.restassured.response.Response;
+import io.smallrye.jwt.build.Jwt;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Event-service simulato che risponde dopo 2 secondi, auth-service simulato immediato
+ */
+@QuarkusTest
+@TestProfile(UpstreamGuardsTest.SlowEventService.class)
+class UpstreamGuardsTest {
+
+    private static final int UPSTREAM_PORT = 18092;
+
+    private static final long EVENT_SERVICE_DELAY_MS = 2_000;
+
+    public static class SlowEventService implements QuarkusTestProfile {
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.rest-client.event-service.url", "http://localhost:" + UPSTREAM_PORT,
+                    "quarkus.rest-client.auth-service.url", "http://localhost:" + UPSTREAM_PORT,
+                    "gateway.upstream.event-service.timeout", "200MS",
+                    "gateway.upstream.event-service.circuit-breaker.request-volume", "4",
+                    "gateway.upstream.event-service.circuit-breaker.delay", "10S");
+        }
+    }
+
+    @Inject
+    Vertx vertx;
+
+    @Test
+    void testSlowEventServiceFailsFastAndSparesAuth() throws Exception {
+        AtomicInteger eventServiceCalls = new AtomicInteger();
+        HttpServer upstream = vertx.createHttpServer()
+                .requestHandler(request -> {
+                    boolean auth = request.path().startsWith("/auth/");
+                    if (!auth) {
+                        eventServiceCalls.incrementAndGet();
+                    }
+                    long delay = auth ? 1 : EVENT_SERVICE_DELAY_MS;
+                    vertx.setTimer(delay, id -> request.response()
+                            .putHeader("Content-Type", "application/json")
+                            .end("{\"available\":true}"));
+                })
+                .listen(UPSTREAM_PORT)
+                .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        try {
+            String token = Jwt.issuer("https://calendar-app.example.com")
+                    .subject("1")
+                    .groups(Set.of("user"))
+                    .claim("userId", "1")
+                    .sign();
+
+            // Riscaldamento del gateway su un servizio veloce, prima di misurare
+            given().when().get("/api/auth/availability?username=mario")
+                    .then().statusCode(200);
+
+            // Le chiamate scadono dopo il timeout del gateway, prima della risposta dell'event-service
+            for (int i = 0; i < 4; i++) {
+                ExtractableResponse<Response> response = freeBusy(token, i);
+                assertEquals(503, response.statusCode());
+                assertEquals("10", response.header("Retry-After"));
+                assertTrue(response.time() < EVENT_SERVICE_DELAY_MS);
+            }
+            assertEquals(4, eventServiceCalls.get());
+
+            // Con il circuito aperto l'event-service non viene più chiamato
+            ExtractableResponse<Response> rejected = freeBusy(token, 4);
+            assertEquals(503, rejected.statusCode());
+            assertEquals("10", rejected.header("Retry-After"));
+            assertEquals(4, eventServiceCalls.get());
+
+            given().when().get("/api/auth/availability?username=mario")
+                    .then().statusCode(200);
+        } finally {
+            upstream.close();
+        }
+    }
+
+    private static ExtractableResponse<Response> freeBusy(String token, int day) {
+        // Intervalli diversi, perché le richieste identiche in corso condividono una sola chiamata
+        return given().auth().oauth2(token)
+                .when().get(String.format("/api/events/freebusy?start=2025-01-01T00:00:00&end=2025-01-%02dT00:00:00", day + 2))
+                .then().extract();
+    }
+}
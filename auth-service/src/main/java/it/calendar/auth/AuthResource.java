@@ -1,20 +1,28 @@
 package it.calendar.auth;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import it.calendar.auth.dto.AuthRequest;
 import it.calendar.auth.dto.AuthResponse;
+import it.calendar.auth.dto.AvailabilityResponse;
+import it.calendar.auth.dto.RefreshRequest;
 import it.calendar.auth.dto.RegisterRequest;
 import it.calendar.auth.model.User;
 import it.calendar.auth.service.AuthService;
+import it.calendar.auth.service.AuthTokens;
+import it.calendar.auth.service.PasswordHashingBusyException;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.util.Optional;
 
+// Thread virtuali con quarkus.virtual-threads.enabled=true: l'attesa dell'hashing BCrypt e di JDBC non occupa un worker
 @Path("/auth")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
 public class AuthResource {
     
     @Inject
@@ -37,23 +45,77 @@ public class AuthResource {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(new AuthResponse(e.getMessage(), null))
                     .build();
+        } catch (PasswordHashingBusyException e) {
+            return busy(e);
         }
     }
     
+    @GET
+    @Path("/availability")
+    public Response availability(@QueryParam("username") String username, @QueryParam("email") String email) {
+        if (isBlank(username) && isBlank(email)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new AuthResponse("Username or email is required", null))
+                    .build();
+        }
+        
+        return Response.ok(new AvailabilityResponse(
+                isBlank(username) ? null : authService.isUsernameAvailable(username),
+                isBlank(email) ? null : authService.isEmailAvailable(email)
+        )).build();
+    }
+    
     @POST
     @Path("/login")
     public Response login(@Valid AuthRequest request) {
-        Optional<String> token = authService.authenticate(
-            request.getUsername(), 
-            request.getPassword()
-        );
+        Optional<AuthTokens> tokens;
+        try {
+            tokens = authService.authenticate(
+                request.getUsername(), 
+                request.getPassword()
+            );
+        } catch (PasswordHashingBusyException e) {
+            return busy(e);
+        }
         
-        if (token.isPresent()) {
-            return Response.ok(new AuthResponse("Authentication successful", token.get())).build();
+        if (tokens.isPresent()) {
+            return Response.ok(toResponse("Authentication successful", tokens.get())).build();
         } else {
             return Response.status(Response.Status.UNAUTHORIZED)
                     .entity(new AuthResponse("Invalid credentials", null))
                     .build();
         }
     }
+    
+    @POST
+    @Path("/refresh")
+    public Response refresh(@Valid RefreshRequest request) {
+        Optional<AuthTokens> tokens = authService.refresh(request.getRefreshToken());
+        
+        if (tokens.isPresent()) {
+            return Response.ok(toResponse("Token refreshed", tokens.get())).build();
+        } else {
+            return Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(new AuthResponse("Invalid refresh token", null))
+                    .build();
+        }
+    }
+    
+    private static AuthResponse toResponse(String message, AuthTokens tokens) {
+        return new AuthResponse(message, tokens.accessToken(), tokens.refreshToken(), tokens.expiresIn());
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+    
+    /**
+     * Risposta 503 con Retry-After quando l'executor dell'hashing è saturo
+     */
+    private Response busy(PasswordHashingBusyException e) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, e.getRetryAfterSeconds())
+                .entity(new AuthResponse("Too many authentication requests, retry later", null))
+                .build();
+    }
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ public class AuthResponse {
     
     private String message;
     private String token;
+    private String refreshToken;
+    private Long expiresIn;
     
     public AuthResponse() {
     }
@@ -13,6 +15,13 @@ public class AuthResponse {
         this.token = token;
     }
     
+    public AuthResponse(String message, String token, String refreshToken, Long expiresIn) {
+        this.message = message;
+        this.token = token;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+    }
+    
     // Getters and setters
     public String getMessage() {
         return message;
@@ -29,4 +38,20 @@ public class AuthResponse {
     public void setToken(String token) {
         this.token = token;
     }
+    
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+    
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+    
+    public Long getExpiresIn() {
+        return expiresIn;
+    }
+    
+    public void setExpiresIn(Long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package it.calendar.auth.dto;
+
+/**
+ * Disponibilità di username ed email per la registrazione; null per i valori non richiesti
+ */
+public class AvailabilityResponse {
+    
+    private Boolean usernameAvailable;
+    private Boolean emailAvailable;
+    
+    public AvailabilityResponse() {
+    }
+    
+    public AvailabilityResponse(Boolean usernameAvailable, Boolean emailAvailable) {
+        this.usernameAvailable = usernameAvailable;
+        this.emailAvailable = emailAvailable;
+    }
+    
+    // Getters and setters
+    public Boolean getUsernameAvailable() {
+        return usernameAvailable;
+    }
+    
+    public void setUsernameAvailable(Boolean usernameAvailable) {
+        this.usernameAvailable = usernameAvailable;
+    }
+    
+    public Boolean getEmailAvailable() {
+        return emailAvailable;
+    }
+    
+    public void setEmailAvailable(Boolean emailAvailable) {
+        this.emailAvailable = emailAvailable;
+    }
+}
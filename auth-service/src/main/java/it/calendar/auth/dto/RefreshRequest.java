@@ -0,0 +1,18 @@
+package it.calendar.auth.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class RefreshRequest {
+    
+    @NotBlank(message = "Refresh token cannot be blank")
+    private String refreshToken;
+    
+    // Getters and setters
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+    
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
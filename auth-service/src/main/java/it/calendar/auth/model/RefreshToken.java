@@ -0,0 +1,46 @@
+package it.calendar.auth.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "refresh_tokens")
+public class RefreshToken extends PanacheEntity {
+    
+    // SHA-256 del token in base64url: il token in chiaro è noto solo al client
+    @Column(nullable = false, unique = true)
+    public String tokenHash;
+    
+    @Column(nullable = false)
+    public Long userId;
+    
+    // UUID comune a tutti i token ottenuti per rotazione dallo stesso login
+    @Column(nullable = false)
+    public String familyId;
+    
+    @Column(nullable = false)
+    public LocalDateTime expiresAt;
+    
+    public boolean rotated;
+    
+    // Istante della rotazione, da cui decorre la finestra di riuso tollerato
+    public LocalDateTime rotatedAt;
+    
+    // Il riuso tollerato dopo la rotazione è già stato concesso: un altro riuso revoca la famiglia
+    public boolean graceUsed;
+    
+    // Costruttore vuoto richiesto da JPA
+    public RefreshToken() {
+    }
+    
+    public RefreshToken(String tokenHash, Long userId, String familyId, LocalDateTime expiresAt) {
+        this.tokenHash = tokenHash;
+        this.userId = userId;
+        this.familyId = familyId;
+        this.expiresAt = expiresAt;
+    }
+}
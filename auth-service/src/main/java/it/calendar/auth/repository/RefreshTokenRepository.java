@@ -0,0 +1,44 @@
+package it.calendar.auth.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import it.calendar.auth.model.RefreshToken;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+
+import java.time.LocalDateTime;
+
+@ApplicationScoped
+public class RefreshTokenRepository implements PanacheRepository<RefreshToken> {
+    
+    /**
+     * Trova un refresh token per hash, bloccandolo fino alla fine della transazione:
+     * due rotazioni concorrenti dello stesso token vengono così serializzate
+     * 
+     * @param tokenHash SHA-256 del token
+     * @return Il token trovato o null se non esiste
+     */
+    public RefreshToken findByTokenHashForUpdate(String tokenHash) {
+        return find("tokenHash", tokenHash).withLock(LockModeType.PESSIMISTIC_WRITE).firstResult();
+    }
+    
+    /**
+     * Revoca tutti i token di una famiglia
+     * 
+     * @param familyId ID della famiglia
+     * @return Numero di token eliminati
+     */
+    public long deleteFamily(String familyId) {
+        return delete("familyId", familyId);
+    }
+    
+    /**
+     * Elimina i token scaduti di un utente
+     * 
+     * @param userId ID dell'utente
+     * @param now Istante di riferimento
+     * @return Numero di token eliminati
+     */
+    public long deleteExpired(Long userId, LocalDateTime now) {
+        return delete("userId = ?1 and expiresAt < ?2", userId, now);
+    }
+}
@@ -5,6 +5,7 @@ import it.calendar.auth.model.User;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class UserRepository implements PanacheRepository<User> {
@@ -36,7 +37,7 @@ public class UserRepository implements PanacheRepository<User> {
      * @return true se esiste, false altrimenti
      */
     public boolean existsByUsername(String username) {
-        return findByUsername(username) != null;
+        return countByUsername(username) > 0;
     }
     
     /**
@@ -46,6 +47,47 @@ public class UserRepository implements PanacheRepository<User> {
      * @return true se esiste, false altrimenti
      */
     public boolean existsByEmail(String email) {
-        return findByEmail(email) != null;
+        return countByEmail(email) > 0;
+    }
+    
+    /**
+     * Conta gli utenti con il nome utente specificato, senza caricare le entità
+     * 
+     * @param username Il nome utente da cercare
+     * @return 1 se il nome utente è occupato, 0 altrimenti
+     */
+    public long countByUsername(String username) {
+        return count("username", username);
+    }
+    
+    /**
+     * Conta gli utenti con l'email specificata, senza caricare le entità
+     * 
+     * @param email L'email da cercare
+     * @return 1 se l'email è occupata, 0 altrimenti
+     */
+    public long countByEmail(String email) {
+        return count("email", email);
+    }
+    
+    /**
+     * Scorre nome utente ed email di tutti gli utenti, da chiudere dopo l'uso
+     * 
+     * @return Coppie [username, email]
+     */
+    public Stream<Object[]> streamUsernamesAndEmails() {
+        return getEntityManager()
+                .createQuery("select u.username, u.email from User u", Object[].class)
+                .getResultStream();
+    }
+    
+    /**
+     * Sostituisce l'hash della password di un utente
+     * 
+     * @param id ID dell'utente
+     * @param password Il nuovo hash BCrypt
+     */
+    public void updatePassword(Long id, String password) {
+        update("password = ?1 where id = ?2", password, id);
     }
 }
\ No newline at end of file
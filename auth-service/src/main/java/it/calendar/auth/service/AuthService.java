@@ -1,69 +1,219 @@
 package it.calendar.auth.service;
 
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.smallrye.jwt.build.Jwt;
+import it.calendar.auth.model.RefreshToken;
 import it.calendar.auth.model.User;
+import it.calendar.auth.repository.RefreshTokenRepository;
 import it.calendar.auth.repository.UserRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.persistence.PersistenceException;
 import jakarta.transaction.Transactional;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
-import org.mindrot.jbcrypt.BCrypt;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashSet;
 import java.util.Optional;
+import java.util.UUID;
 
 @ApplicationScoped
 public class AuthService {
     
     private static final Logger LOG = Logger.getLogger(AuthService.class);
     
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
     @Inject
     UserRepository userRepository;
     
+    @Inject
+    PasswordHasher passwordHasher;
+    
+    @Inject
+    UserAvailability userAvailability;
+    
+    @Inject
+    RefreshTokenRepository refreshTokenRepository;
+    
     @ConfigProperty(name = "mp.jwt.verify.issuer")
     String issuer;
     
-    @Transactional
+    @ConfigProperty(name = "auth.access-token.lifetime", defaultValue = "15M")
+    Duration accessTokenLifetime;
+    
+    @ConfigProperty(name = "auth.refresh-token.lifetime", defaultValue = "30D")
+    Duration refreshTokenLifetime;
+    
+    @ConfigProperty(name = "auth.refresh-token.reuse-grace", defaultValue = "10S")
+    Duration refreshTokenReuseGrace;
+    
     public User register(String username, String email, String password) {
-        // Verifica se l'utente o l'email esistono già
-        if (userRepository.existsByUsername(username)) {
+        // Verifica se l'utente o l'email esistono già (il database viene interrogato solo se il filtro li contiene)
+        if (userAvailability.isUsernameTaken(username)) {
             throw new IllegalArgumentException("Username already exists");
         }
-        if (userRepository.existsByEmail(email)) {
+        if (userAvailability.isEmailTaken(email)) {
             throw new IllegalArgumentException("Email already exists");
         }
         
         LOG.debug("Registering new user: " + username);
         
-        // Hash della password
-        String hashedPassword = BCrypt.hashpw(password, BCrypt.gensalt());
+        // Hash della password, fuori dalla transazione per non tenere occupata una connessione
+        String hashedPassword = passwordHasher.hash(password);
         
         // Creazione e salvataggio del nuovo utente
         User user = new User(username, email, hashedPassword);
-        userRepository.persist(user);
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                userRepository.persist(user);
+                userRepository.flush();
+            });
+        } catch (PersistenceException e) {
+            // Registrazione concorrente o avvenuta su un'altra istanza: lo segnala l'indice univoco
+            LOG.debug("Duplicate registration rejected by the database for user: " + username);
+            userAvailability.markTaken(username, email);
+            throw new IllegalArgumentException("Username or email already exists");
+        }
+        userAvailability.markTaken(username, email);
         
         LOG.debug("User registered successfully with ID: " + user.id);
         return user;
     }
     
-    public Optional<String> authenticate(String username, String password) {
+    public boolean isUsernameAvailable(String username) {
+        return !userAvailability.isUsernameTaken(username);
+    }
+    
+    public boolean isEmailAvailable(String email) {
+        return !userAvailability.isEmailTaken(email);
+    }
+    
+    public Optional<AuthTokens> authenticate(String username, String password) {
         LOG.debug("Authentication attempt for user: " + username);
         
         User user = userRepository.findByUsername(username);
         
-        if (user != null && BCrypt.checkpw(password, user.password)) {
+        if (user != null && passwordHasher.verify(password, user.password)) {
             LOG.debug("Authentication successful for user: " + username);
-            return Optional.of(generateToken(user));
+            rehashIfNeeded(user, password);
+            String refreshToken = QuarkusTransaction.requiringNew().call(() -> issueRefreshToken(user.id, UUID.randomUUID().toString()));
+            return Optional.of(new AuthTokens(generateToken(user), refreshToken, accessTokenLifetime.toSeconds()));
         }
         
         LOG.debug("Authentication failed for user: " + username);
         return Optional.empty();
     }
     
+    /**
+     * Scambia un refresh token con un nuovo access token e un nuovo refresh token, senza
+     * verificare la password. Il token presentato viene ruotato: se viene riusato, è stato
+     * probabilmente sottratto e l'intera famiglia di token di quel login viene revocata.
+     * 
+     * Entro auth.refresh-token.reuse-grace dalla rotazione il riuso è invece accettato, perché
+     * di solito sono due schede dello stesso browser che rinnovano insieme lo stesso token: la
+     * seconda riceve un altro token della stessa famiglia. Del successore è noto solo l'hash,
+     * quindi non può essere restituito lo stesso. Il riuso tollerato è uno solo per token:
+     * un ulteriore riuso, anche dentro la finestra, revoca la famiglia.
+     * 
+     * @param refreshToken Il refresh token ricevuto dal client
+     * @return I nuovi token, vuoto se il refresh token non è valido, è scaduto o è già stato usato
+     */
+    @Transactional
+    public Optional<AuthTokens> refresh(String refreshToken) {
+        RefreshToken stored = refreshTokenRepository.findByTokenHashForUpdate(hashToken(refreshToken));
+        if (stored == null) {
+            LOG.debug("Unknown refresh token");
+            return Optional.empty();
+        }
+        
+        if (stored.rotated && withinReuseGrace(stored)) {
+            User user = userRepository.findById(stored.userId);
+            if (user == null) {
+                return Optional.empty();
+            }
+            LOG.debug("Refresh token reused within the grace period for user ID: " + stored.userId);
+            // Sotto il lock della riga: due riusi concorrenti non ottengono entrambi la tolleranza
+            stored.graceUsed = true;
+            String sibling = issueRefreshToken(user.id, stored.familyId);
+            return Optional.of(new AuthTokens(generateToken(user), sibling, accessTokenLifetime.toSeconds()));
+        }
+        
+        if (stored.rotated) {
+            LOG.warn("Refresh token reused for user ID: " + stored.userId + ", revoking token family");
+            refreshTokenRepository.deleteFamily(stored.familyId);
+            return Optional.empty();
+        }
+        
+        User user = userRepository.findById(stored.userId);
+        if (stored.expiresAt.isBefore(LocalDateTime.now()) || user == null) {
+            LOG.debug("Expired refresh token for user ID: " + stored.userId);
+            refreshTokenRepository.delete(stored);
+            return Optional.empty();
+        }
+        
+        stored.rotated = true;
+        stored.rotatedAt = LocalDateTime.now();
+        String rotated = issueRefreshToken(user.id, stored.familyId);
+        return Optional.of(new AuthTokens(generateToken(user), rotated, accessTokenLifetime.toSeconds()));
+    }
+    
+    private boolean withinReuseGrace(RefreshToken stored) {
+        return !stored.graceUsed
+                && stored.rotatedAt != null
+                && stored.rotatedAt.plus(refreshTokenReuseGrace).isAfter(LocalDateTime.now())
+                && stored.expiresAt.isAfter(LocalDateTime.now());
+    }
+    
+    // Da chiamare in una transazione; elimina anche i token scaduti dell'utente
+    private String issueRefreshToken(Long userId, String familyId) {
+        refreshTokenRepository.deleteExpired(userId, LocalDateTime.now());
+        
+        byte[] random = new byte[32];
+        RANDOM.nextBytes(random);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+        
+        refreshTokenRepository.persist(new RefreshToken(hashToken(token), userId, familyId,
+                LocalDateTime.now().plus(refreshTokenLifetime)));
+        return token;
+    }
+    
+    private static String hashToken(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Aggiorna l'hash della password se il costo configurato è cambiato: la password in chiaro
+     * è disponibile solo al login. Con l'executor saturo l'aggiornamento viene rimandato al prossimo login.
+     */
+    private void rehashIfNeeded(User user, String password) {
+        if (!passwordHasher.needsRehash(user.password)) {
+            return;
+        }
+        
+        try {
+            String rehashed = passwordHasher.hash(password);
+            QuarkusTransaction.requiringNew().run(() -> userRepository.updatePassword(user.id, rehashed));
+            LOG.debug("Password rehashed for user ID: " + user.id);
+        } catch (PasswordHashingBusyException e) {
+            LOG.debug("Skipping password rehash for user ID: " + user.id + ", hashing queue is full");
+        }
+    }
+    
     private String generateToken(User user) {
         LOG.debug("Generating JWT token for user ID: " + user.id);
         
@@ -77,7 +227,7 @@ public class AuthService {
                     .claim("email", user.email)
                     .claim("username", user.username)
                     .claim("userId", userIdStr)  // Aggiungi l'ID utente anche come claim esplicito
-                    .expiresAt(Instant.now().plus(Duration.ofHours(24)))
+                    .expiresAt(Instant.now().plus(accessTokenLifetime))
                     .sign();
             
             LOG.debug("Token generated successfully");
@@ -0,0 +1,11 @@
+package it.calendar.auth.service;
+
+/**
+ * Token restituiti da login e refresh
+ *
+ * @param accessToken JWT da usare nelle richieste
+ * @param refreshToken Token opaco, monouso, per ottenere una nuova coppia
+ * @param expiresIn Durata dell'access token in secondi
+ */
+public record AuthTokens(String accessToken, String refreshToken, long expiresIn) {
+}
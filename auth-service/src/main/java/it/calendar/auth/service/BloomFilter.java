@@ -0,0 +1,91 @@
+package it.calendar.auth.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro di Bloom su stringhe, sicuro per l'uso concorrente.
+ *
+ * mightContain non ha falsi negativi: se restituisce false la stringa non è mai stata aggiunta.
+ * Un true va invece confermato altrove, perché può essere un falso positivo con probabilità
+ * vicina a quella richiesta finché gli inserimenti restano entro la capacità.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final long capacity;
+    private final AtomicLong insertions = new AtomicLong();
+
+    /**
+     * @param capacity Numero di inserimenti previsti
+     * @param falsePositiveRate Probabilità di falso positivo desiderata alla capacità prevista
+     */
+    public BloomFilter(long capacity, double falsePositiveRate) {
+        long n = Math.max(1, capacity);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray((int) Math.max(1, (m + 63) / 64));
+        this.bits = words.length() * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        this.capacity = n;
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        long step = step(hash);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(hash + i * step, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        long step = step(hash);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(hash + i * step, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indica se gli inserimenti hanno superato la capacità prevista, con un tasso di falsi positivi più alto
+     */
+    public boolean isSaturated() {
+        return insertions.get() > capacity;
+    }
+
+    // FNV-1a a 64 bit sui caratteri, seguito dal mix finale di MurmurHash3
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // Secondo hash per il double hashing, dispari per percorrere tutti i bit
+    private static long step(long hash) {
+        return mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe53ae49bL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
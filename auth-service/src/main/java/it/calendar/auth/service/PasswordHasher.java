@@ -0,0 +1,137 @@
+package it.calendar.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashing e verifica BCrypt su un executor dedicato, dimensionato sui core e con coda limitata.
+ *
+ * Un'ondata di login (tutti i client che si riconnettono dopo un deploy) non può così occupare
+ * la CPU a scapito delle altre richieste: i thread di lavoro attendono il risultato senza
+ * consumare CPU e, a coda piena, la richiesta viene rifiutata subito con PasswordHashingBusyException.
+ */
+@ApplicationScoped
+public class PasswordHasher {
+
+    @ConfigProperty(name = "auth.password-hashing.cost", defaultValue = "10")
+    int cost;
+
+    @ConfigProperty(name = "auth.password-hashing.threads")
+    Optional<Integer> threads;
+
+    @ConfigProperty(name = "auth.password-hashing.queue-size", defaultValue = "64")
+    int queueSize;
+
+    @ConfigProperty(name = "auth.password-hashing.retry-after", defaultValue = "2S")
+    Duration retryAfter;
+
+    @Inject
+    MeterRegistry registry;
+
+    ThreadPoolExecutor executor;
+
+    private Timer hashTimer;
+    private Timer verifyTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads.orElse(Runtime.getRuntime().availableProcessors());
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("auth.password.hashing.queue", executor, e -> e.getQueue().size())
+                .description("Password hashing tasks waiting for a thread")
+                .register(registry);
+        Gauge.builder("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing tasks running")
+                .register(registry);
+        hashTimer = Timer.builder("auth.password.hashing.duration").tag("operation", "hash").register(registry);
+        verifyTimer = Timer.builder("auth.password.hashing.duration").tag("operation", "verify").register(registry);
+        rejected = Counter.builder("auth.password.hashing.rejected")
+                .description("Requests rejected because the hashing queue was full")
+                .register(registry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Calcola l'hash BCrypt di una password con il costo configurato
+     *
+     * @throws PasswordHashingBusyException se la coda è piena
+     */
+    public String hash(String password) {
+        return run(hashTimer, () -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+    }
+
+    /**
+     * Verifica una password rispetto a un hash BCrypt
+     *
+     * @throws PasswordHashingBusyException se la coda è piena
+     */
+    public boolean verify(String password, String hash) {
+        return run(verifyTimer, () -> BCrypt.checkpw(password, hash));
+    }
+
+    /**
+     * Indica se l'hash è stato calcolato con un costo diverso da quello configurato
+     */
+    public boolean needsRehash(String hash) {
+        // Formato $2a$10$...: il costo è nei due caratteri dopo il secondo '$'
+        try {
+            return hash.length() < 7 || Integer.parseInt(hash.substring(4, 6)) != cost;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private <T> T run(Timer timer, Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException(Math.max(1, retryAfter.toSeconds()));
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
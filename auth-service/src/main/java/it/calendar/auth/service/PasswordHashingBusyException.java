@@ -0,0 +1,18 @@
+package it.calendar.auth.service;
+
+/**
+ * Sollevata quando l'executor dell'hashing delle password è saturo: la richiesta va ripetuta più tardi
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingBusyException(long retryAfterSeconds) {
+        super("Password hashing capacity exhausted");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
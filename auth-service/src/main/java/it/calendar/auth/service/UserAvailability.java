@@ -0,0 +1,85 @@
+package it.calendar.auth.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import it.calendar.auth.repository.UserRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.stream.Stream;
+
+/**
+ * Disponibilità di username ed email, con un filtro di Bloom per ciascuno davanti al database.
+ *
+ * Un valore assente dal filtro è sicuramente libero e non richiede query; un valore presente
+ * viene confermato con una query di solo conteggio. I filtri vengono costruiti all'avvio e
+ * aggiornati a ogni registrazione di questa istanza: le registrazioni su altre istanze possono
+ * mancare, ma in quel caso è l'indice univoco del database a rifiutare il duplicato.
+ */
+@ApplicationScoped
+public class UserAvailability {
+
+    private static final Logger LOG = Logger.getLogger(UserAvailability.class);
+
+    @Inject
+    UserRepository userRepository;
+
+    @ConfigProperty(name = "auth.availability.expected-users", defaultValue = "100000")
+    long expectedUsers;
+
+    @ConfigProperty(name = "auth.availability.false-positive-rate", defaultValue = "0.01")
+    double falsePositiveRate;
+
+    private volatile BloomFilter usernames;
+    private volatile BloomFilter emails;
+
+    void onStart(@Observes StartupEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Ricostruisce i filtri da tutti gli utenti registrati, lasciando spazio per la crescita
+     */
+    public void rebuild() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            long capacity = Math.max(expectedUsers, 2 * userRepository.count());
+            BloomFilter newUsernames = new BloomFilter(capacity, falsePositiveRate);
+            BloomFilter newEmails = new BloomFilter(capacity, falsePositiveRate);
+
+            try (Stream<Object[]> rows = userRepository.streamUsernamesAndEmails()) {
+                rows.forEach(row -> {
+                    newUsernames.add((String) row[0]);
+                    newEmails.add((String) row[1]);
+                });
+            }
+
+            usernames = newUsernames;
+            emails = newEmails;
+            LOG.debug("Availability filters rebuilt with capacity " + capacity);
+        });
+    }
+
+    public boolean isUsernameTaken(String username) {
+        return usernames.mightContain(username) && userRepository.countByUsername(username) > 0;
+    }
+
+    public boolean isEmailTaken(String email) {
+        return emails.mightContain(email) && userRepository.countByEmail(email) > 0;
+    }
+
+    /**
+     * Registra username ed email come occupati, da chiamare dopo il commit della registrazione
+     */
+    public void markTaken(String username, String email) {
+        usernames.add(username);
+        emails.add(email);
+
+        if (usernames.isSaturated()) {
+            // Nessun errore possibile, solo più query: i filtri vengono ridimensionati al prossimo avvio
+            LOG.warn("Availability filters are over capacity, raise auth.availability.expected-users");
+        }
+    }
+}
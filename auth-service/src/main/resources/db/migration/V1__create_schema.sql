@@ -0,0 +1,23 @@
+-- Schema iniziale, equivalente a quello generato finora da Hibernate con database.generation=update.
+-- Sui database esistenti questa migrazione viene saltata grazie a baseline-on-migrate.
+
+create sequence users_SEQ start with 1 increment by 50;
+create sequence MyEntity_SEQ start with 1 increment by 50;
+
+create table users (
+    id bigint not null,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    username varchar(255) not null,
+    primary key (id)
+);
+
+-- Indici univoci usati da findByUsername/findByEmail e dai controlli in fase di registrazione
+create unique index users_username_idx on users (username);
+create unique index users_email_idx on users (email);
+
+create table MyEntity (
+    id bigint not null,
+    field varchar(255),
+    primary key (id)
+);
@@ -0,0 +1,22 @@
+-- Refresh token con rotazione: del token viene salvato solo lo SHA-256.
+-- I token ruotati restano fino alla scadenza per riconoscerne il riuso, che revoca l'intera famiglia,
+-- tranne un solo riuso entro pochi secondi dalla rotazione (più schede che rinnovano insieme).
+
+create sequence refresh_tokens_SEQ start with 1 increment by 50;
+
+create table refresh_tokens (
+    id bigint not null,
+    tokenHash varchar(64) not null,
+    userId bigint not null,
+    familyId varchar(36) not null,
+    expiresAt timestamp(6) not null,
+    rotated boolean not null,
+    rotatedAt timestamp(6),
+    graceUsed boolean not null,
+    primary key (id),
+    constraint refresh_tokens_user_fk foreign key (userId) references users (id) on delete cascade
+);
+
+create unique index refresh_tokens_hash_idx on refresh_tokens (tokenHash);
+create index refresh_tokens_family_idx on refresh_tokens (familyId);
+create index refresh_tokens_user_expiry_idx on refresh_tokens (userId, expiresAt);
@@ -0,0 +1,63 @@
+package it.calendar.auth;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+class AuthAvailabilityTest {
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Test
+    void testAvailability() {
+        given()
+          .contentType("application/json")
+          .body("{\"username\":\"alice\",\"email\":\"alice@example.com\",\"password\":\"secret123\"}")
+          .when().post("/auth/register")
+          .then()
+             .statusCode(201);
+
+        given()
+          .queryParam("username", "alice")
+          .queryParam("email", "alice@example.com")
+          .when().get("/auth/availability")
+          .then()
+             .statusCode(200)
+             .body("usernameAvailable", is(false))
+             .body("emailAvailable", is(false));
+
+        // Un valore assente dal filtro non interroga il database
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        given()
+          .queryParam("username", "bob")
+          .when().get("/auth/availability")
+          .then()
+             .statusCode(200)
+             .body("usernameAvailable", is(true))
+             .body("emailAvailable", nullValue());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        given()
+          .contentType("application/json")
+          .body("{\"username\":\"alice\",\"email\":\"other@example.com\",\"password\":\"secret123\"}")
+          .when().post("/auth/register")
+          .then()
+             .statusCode(400)
+             .body("message", is("Username already exists"));
+
+        given()
+          .when().get("/auth/availability")
+          .then()
+             .statusCode(400);
+    }
+}
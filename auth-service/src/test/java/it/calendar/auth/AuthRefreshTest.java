@@ -0,0 +1,87 @@
+package it.calendar.auth;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.response.ValidatableResponse;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+class AuthRefreshTest {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Test
+    void testRefreshRotatesAndDetectsReuse() throws InterruptedException {
+        String first = login("carol");
+
+        long verifications = registry.get("auth.password.hashing.duration").tag("operation", "verify").timer().count();
+
+        String second = refresh(first)
+             .statusCode(200)
+             .body("token", notNullValue())
+             .body("refreshToken", not(first))
+          .extract().path("refreshToken");
+
+        // Il rinnovo non passa dalla verifica BCrypt
+        assertEquals(verifications, registry.get("auth.password.hashing.duration").tag("operation", "verify").timer().count());
+
+        // Trascorsa la finestra (1s nel profilo test), riusare il token ruotato revoca
+        // anche quello emesso al suo posto
+        Thread.sleep(1200);
+
+        refresh(first).statusCode(401);
+        refresh(second).statusCode(401);
+    }
+
+    @Test
+    void testReuseIsToleratedOnceWithinGrace() {
+        String first = login("dave");
+        String second = refresh(first).statusCode(200).extract().path("refreshToken");
+
+        // Subito dopo la rotazione un riuso è tollerato (un'altra scheda che rinnova insieme)
+        String sibling = refresh(first)
+             .statusCode(200)
+             .body("refreshToken", not(second))
+          .extract().path("refreshToken");
+
+        // Un secondo riuso, anche dentro la finestra, revoca l'intera famiglia
+        refresh(first).statusCode(401);
+        refresh(second).statusCode(401);
+        refresh(sibling).statusCode(401);
+    }
+
+    private static String login(String username) {
+        given()
+          .contentType("application/json")
+          .body("{\"username\":\"" + username + "\",\"email\":\"" + username + "@example.com\",\"password\":\"secret123\"}")
+          .when().post("/auth/register")
+          .then()
+             .statusCode(201);
+
+        return given()
+          .contentType("application/json")
+          .body("{\"username\":\"" + username + "\",\"password\":\"secret123\"}")
+          .when().post("/auth/login")
+          .then()
+             .statusCode(200)
+             .body("token", notNullValue())
+             .body("expiresIn", is(900))
+          .extract().path("refreshToken");
+    }
+
+    private static ValidatableResponse refresh(String refreshToken) {
+        return given()
+          .contentType("application/json")
+          .body("{\"refreshToken\":\"" + refreshToken + "\"}")
+          .when().post("/auth/refresh")
+          .then();
+    }
+}
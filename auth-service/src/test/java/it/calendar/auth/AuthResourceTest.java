@@ -9,12 +9,14 @@ import static org.hamcrest.CoreMatchers.is;
 @QuarkusTest
 class AuthResourceTest {
     @Test
-    void testHelloEndpoint() {
+    void testLoginWithUnknownUserIsRejected() {
         given()
-          .when().get("/auth")
+          .contentType("application/json")
+          .body("{\"username\":\"nobody\",\"password\":\"secret123\"}")
+          .when().post("/auth/login")
           .then()
-             .statusCode(200)
-             .body(is("Hello from Quarkus REST"));
+             .statusCode(401)
+             .body("message", is("Invalid credentials"));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package it.calendar.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private PasswordHasher hasher;
+
+    @BeforeEach
+    void setUp() {
+        hasher = new PasswordHasher();
+        hasher.cost = 4;
+        hasher.threads = Optional.of(1);
+        hasher.queueSize = 1;
+        hasher.retryAfter = Duration.ofSeconds(3);
+        hasher.registry = registry;
+        hasher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Test
+    void testHashAndRehash() {
+        String hash = hasher.hash("secret");
+
+        assertTrue(hasher.verify("secret", hash));
+        assertFalse(hasher.verify("wrong", hash));
+        assertFalse(hasher.needsRehash(hash));
+
+        hasher.cost = 5;
+        assertTrue(hasher.needsRehash(hash));
+        assertEquals(1, registry.get("auth.password.hashing.duration").tag("operation", "hash").timer().count());
+        assertEquals(2, registry.get("auth.password.hashing.duration").tag("operation", "verify").timer().count());
+    }
+
+    @Test
+    void testFullQueueRejectsImmediately() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        // Un task occupa l'unico thread e un altro riempie la coda
+        hasher.executor.execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        hasher.executor.execute(() -> awaitQuietly(release));
+        started.await();
+
+        PasswordHashingBusyException busy = assertThrows(PasswordHashingBusyException.class, () -> hasher.hash("secret"));
+        assertEquals(3, busy.getRetryAfterSeconds());
+        assertEquals(1.0, registry.get("auth.password.hashing.queue").gauge().value());
+        assertEquals(1.0, registry.get("auth.password.hashing.rejected").counter().count());
+
+        release.countDown();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
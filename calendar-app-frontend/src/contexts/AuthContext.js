@@ -53,9 +53,10 @@ export const AuthProvider = ({ children }) => {
         password
       });
       
-      // Salva il token
-      const { token } = response;
+      // Salva il token e il refresh token con cui rinnovarlo alla scadenza
+      const { token, refreshToken } = response;
       localStorage.setItem('token', token);
+      localStorage.setItem('refreshToken', refreshToken);
       setToken(token);
       
       // Imposta il token nell'header delle richieste API
@@ -113,6 +114,7 @@ export const AuthProvider = ({ children }) => {
   // Funzione per effettuare il logout
   const logout = () => {
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     setToken(null);
     setUser(null);
     apiClient.removeAuthToken();
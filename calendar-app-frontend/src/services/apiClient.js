@@ -29,14 +29,80 @@ class ApiClient {
     delete this.headers.Authorization;
   }
 
+  /**
+   * Ottiene un nuovo access token con il refresh token salvato, senza ripetere il login.
+   * Le richieste che ricevono 401 nello stesso momento condividono un solo rinnovo,
+   * perché ogni refresh token è monouso.
+   *
+   * Le schede dello stesso browser condividono il refresh token in localStorage: il rinnovo
+   * avviene sotto un Web Lock comune e, ottenuto il lock, il token viene riletto. Se un'altra
+   * scheda l'ha già ruotato, questa adotta i token salvati invece di riusare quello vecchio.
+   * Senza Web Locks le schede rinnovano in parallelo e la finestra di riuso del server evita
+   * che il secondo rinnovo revochi il login.
+   * @returns {Promise<boolean>} true se il token è stato rinnovato
+   */
+  refreshAccessToken() {
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (!refreshToken) {
+      return Promise.resolve(false);
+    }
+
+    if (!this.refreshing) {
+      const refresh = () => this.refreshWith(refreshToken);
+      this.refreshing = (navigator.locks
+        ? navigator.locks.request('calendar-refresh-token', refresh)
+        : refresh())
+        .catch(() => false)
+        .finally(() => {
+          this.refreshing = null;
+        });
+    }
+
+    return this.refreshing;
+  }
+
+  /**
+   * Rinnova i token se il refresh token salvato è ancora quello che ha fallito
+   * @param {string} refreshToken - Il refresh token letto prima di attendere il lock
+   * @returns {Promise<boolean>} true se è disponibile un access token rinnovato
+   */
+  async refreshWith(refreshToken) {
+    const current = localStorage.getItem('refreshToken');
+    if (!current) {
+      return false;
+    }
+    if (current !== refreshToken) {
+      // Rinnovato da un'altra scheda nel frattempo
+      this.setAuthToken(localStorage.getItem('token'));
+      return true;
+    }
+
+    const response = await fetch(`${this.baseURL}/api/auth/refresh`, {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/json' },
+      body: JSON.stringify({ refreshToken }),
+    });
+    if (!response.ok) {
+      localStorage.removeItem('refreshToken');
+      return false;
+    }
+
+    const { token, refreshToken: nextRefreshToken } = await response.json();
+    localStorage.setItem('token', token);
+    localStorage.setItem('refreshToken', nextRefreshToken);
+    this.setAuthToken(token);
+    return true;
+  }
+
   /**
    * Effettua una richiesta HTTP
    * @param {string} method - Il metodo HTTP (GET, POST, PUT, DELETE, ecc.)
    * @param {string} endpoint - L'endpoint API
    * @param {Object} data - I dati da inviare (per POST, PUT, ecc.)
+   * @param {boolean} retry - Se ripetere la richiesta dopo un rinnovo del token in caso di 401
    * @returns {Promise<any>} La risposta della richiesta
    */
-  async request(method, endpoint, data = null) {
+  async request(method, endpoint, data = null, retry = true) {
     const url = `${this.baseURL}${endpoint}`;
     
     const options = {
@@ -50,6 +116,12 @@ class ApiClient {
 
     try {
       const response = await fetch(url, options);
+
+      // Access token scaduto: lo rinnova e ripete la richiesta una volta
+      if (response.status === 401 && retry && !endpoint.startsWith('/api/auth/')
+          && await this.refreshAccessToken()) {
+        return this.request(method, endpoint, data, false);
+      }
       
       // Parsa la risposta JSON
       const contentType = response.headers.get('content-type');
@@ -0,0 +1,116 @@
+package it.calendar.common.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.smallrye.jwt.auth.principal.DefaultJWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.JWTAuthContextInfo;
+import io.smallrye.jwt.auth.principal.JWTCallerPrincipal;
+import io.smallrye.jwt.auth.principal.JWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.ParseException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sostituisce la factory di smallrye-jwt per non ripetere la verifica della firma RSA e il parsing
+ * dei claim a ogni richiesta: i client riusano lo stesso token per tutta la sua durata.
+ *
+ * I token verificati restano in una cache limitata fino al loro exp; i token non validi non
+ * vengono memorizzati e seguono sempre la verifica completa. La chiave è lo SHA-256 del token
+ * insieme al JWTAuthContextInfo con cui è stato verificato (chiave, issuer, audience...): un
+ * token verificato con impostazioni diverse, ad esempio da un JWTParser con un contesto proprio,
+ * non riusa il risultato di un'altra verifica.
+ *
+ * Condivisa da api-gateway ed event-service, che la attivano includendo calendar-common.
+ */
+@ApplicationScoped
+@Alternative
+@Priority(1)
+public class CachingJWTCallerPrincipalFactory extends JWTCallerPrincipalFactory {
+
+    private final DefaultJWTCallerPrincipalFactory delegate = new DefaultJWTCallerPrincipalFactory();
+
+    @ConfigProperty(name = "calendar.jwt.verified-cache.maximum-size", defaultValue = "10000")
+    long maximumSize;
+
+    // Il contesto viene confrontato per identità: Quarkus ne produce uno per applicazione
+    private record VerifiedToken(JWTAuthContextInfo verification, String digest) {
+    }
+
+    private Cache<VerifiedToken, JWTCallerPrincipal> verified;
+
+    @PostConstruct
+    void init() {
+        verified = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<VerifiedToken, JWTCallerPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(VerifiedToken key, JWTCallerPrincipal principal, long currentTime) {
+                        return remainingNanos(principal);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(VerifiedToken key, JWTCallerPrincipal principal, long currentTime,
+                                                  long currentDuration) {
+                        return remainingNanos(principal);
+                    }
+
+                    @Override
+                    public long expireAfterRead(VerifiedToken key, JWTCallerPrincipal principal, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public JWTCallerPrincipal parse(String token, JWTAuthContextInfo authContextInfo) throws ParseException {
+        VerifiedToken key = new VerifiedToken(authContextInfo, digest(token));
+
+        JWTCallerPrincipal principal = verified.getIfPresent(key);
+        if (principal != null && remainingNanos(principal) > 0) {
+            return principal;
+        }
+
+        principal = delegate.parse(token, authContextInfo);
+        if (principal.getExpirationTime() > 0) {
+            verified.put(key, principal);
+        }
+        return principal;
+    }
+
+    /**
+     * Statistiche della cache dei token verificati
+     *
+     * @return Hit e miss dall'avvio
+     */
+    public CacheStats stats() {
+        return verified.stats();
+    }
+
+    private static long remainingNanos(JWTCallerPrincipal principal) {
+        long millis = TimeUnit.SECONDS.toMillis(principal.getExpirationTime()) - System.currentTimeMillis();
+        return Math.max(0, TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
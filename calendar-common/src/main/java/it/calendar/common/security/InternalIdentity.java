@@ -0,0 +1,20 @@
+package it.calendar.common.security;
+
+import java.util.List;
+
+/**
+ * Identità di un utente già verificata dall'api-gateway e inoltrata all'event-service al posto
+ * del JWT, nell'header {@link #HEADER} firmato da InternalIdentitySigner.
+ *
+ * @param userId ID dell'utente
+ * @param groups Ruoli dell'utente
+ * @param expiresAt Scadenza in secondi epoch
+ */
+public record InternalIdentity(String userId, List<String> groups, long expiresAt) {
+
+    public static final String HEADER = "X-Calendar-Identity";
+
+    public InternalIdentity {
+        groups = List.copyOf(groups);
+    }
+}
@@ -0,0 +1,92 @@
+package it.calendar.common.security;
+
+import org.jboss.logging.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Firma e verifica dell'header X-Calendar-Identity nel formato
+ * {@code userId;ruoli separati da virgola;scadenza in secondi epoch;firma}, dove la firma è
+ * l'HMAC-SHA256 base64url della parte precedente con il segreto condiviso. Solo il gateway e
+ * l'event-service conoscono il segreto, quindi l'header non può essere prodotto da un client;
+ * verificarlo costa un HMAC invece di una firma RSA.
+ */
+public final class InternalIdentitySigner {
+
+    private static final Logger LOG = Logger.getLogger(InternalIdentitySigner.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    public InternalIdentitySigner(String secret) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    /**
+     * @param identity Identità da inoltrare
+     * @return Valore dell'header
+     */
+    public String sign(InternalIdentity identity) {
+        String payload = identity.userId() + ";" + String.join(",", identity.groups()) + ";" + identity.expiresAt();
+        return payload + ";" + Base64.getUrlEncoder().withoutPadding().encodeToString(mac(payload));
+    }
+
+    /**
+     * @param header Valore dell'header ricevuto
+     * @param now Istante corrente in secondi epoch
+     * @return L'identità, vuoto se l'header è malformato, la firma non corrisponde o è scaduto
+     */
+    public Optional<InternalIdentity> verify(String header, long now) {
+        int signatureStart = header.lastIndexOf(';');
+        String[] parts = header.substring(0, Math.max(signatureStart, 0)).split(";", -1);
+        if (signatureStart < 0 || parts.length != 3) {
+            LOG.debug("Malformed internal identity header");
+            return Optional.empty();
+        }
+
+        byte[] expected = mac(header.substring(0, signatureStart));
+        byte[] actual;
+        try {
+            actual = Base64.getUrlDecoder().decode(header.substring(signatureStart + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            LOG.debug("Internal identity signature mismatch");
+            return Optional.empty();
+        }
+
+        long expiresAt;
+        try {
+            Long.parseLong(parts[0]);
+            expiresAt = Long.parseLong(parts[2]);
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        if (expiresAt <= now) {
+            LOG.debug("Internal identity expired");
+            return Optional.empty();
+        }
+
+        List<String> groups = parts[1].isEmpty() ? List.of() : List.of(parts[1].split(","));
+        return Optional.of(new InternalIdentity(parts[0], groups, expiresAt));
+    }
+
+    private byte[] mac(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package it.calendar.common.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InternalIdentitySignerTest {
+
+    private static final long NOW = 1_750_000_000L;
+
+    private final InternalIdentitySigner signer = new InternalIdentitySigner("secret");
+
+    @Test
+    void testSignedIdentityIsVerified() {
+        InternalIdentity identity = new InternalIdentity("42", List.of("user", "admin"), NOW + 30);
+
+        assertEquals(identity, signer.verify(signer.sign(identity), NOW).orElseThrow());
+        assertEquals(List.of(), signer.verify(signer.sign(new InternalIdentity("42", List.of(), NOW + 30)), NOW)
+                .orElseThrow().groups());
+    }
+
+    @Test
+    void testTamperedExpiredOrForeignIdentityIsRejected() {
+        String header = signer.sign(new InternalIdentity("42", List.of("user"), NOW + 30));
+
+        assertTrue(signer.verify(header.replaceFirst("^42", "43"), NOW).isEmpty());
+        assertTrue(signer.verify(header, NOW + 30).isEmpty());
+        assertTrue(new InternalIdentitySigner("other").verify(header, NOW).isEmpty());
+        assertTrue(signer.verify("42;user", NOW).isEmpty());
+        assertTrue(signer.verify("x;user;" + (NOW + 30) + ";!", NOW).isEmpty());
+    }
+}
@@ -0,0 +1,18 @@
+package it.calendar.event;
+
+import jakarta.ws.rs.NameBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indica un metodo GET la cui risposta ha come ETag la versione del calendario dell'utente
+ * (CalendarVersions): le rivalidazioni vengono risolte da NotModifiedFilter
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface CalendarVersioned {
+}
@@ -1,11 +1,17 @@
 package it.calendar.event;
 
+import io.quarkus.virtual.threads.VirtualThreads;
+import io.smallrye.common.annotation.NonBlocking;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.mutiny.Uni;
 import it.calendar.event.dto.CategoryDto;
 import it.calendar.event.model.Category;
+import it.calendar.event.service.CalendarVersions;
 import it.calendar.event.service.CategoryService;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.jwt.JsonWebToken;
@@ -13,6 +19,8 @@ import org.jboss.logging.Logger;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Path("/categories")
@@ -28,9 +36,23 @@ public class CategoryResource {
     @Inject
     JsonWebToken jwt;
     
+    @Inject
+    CalendarVersions calendarVersions;
+    
+    // Thread virtuali con quarkus.virtual-threads.enabled=true, altrimenti il pool dei worker
+    @Inject
+    @VirtualThreads
+    ExecutorService blockingExecutor;
+    
+    /**
+     * Gira sul thread di I/O: le categorie già in cache vengono restituite senza occupare
+     * un worker, che serve solo per caricarle dal database (vedi onWorker)
+     */
     @GET
     @RolesAllowed("user")
-    public Response getAllCategories() {
+    @CalendarVersioned
+    @NonBlocking
+    public Uni<Response> getAllCategories() {
         LOG.debug("JWT principal: " + jwt.getName());
         LOG.debug("JWT claims: " + jwt.getClaimNames());
         
@@ -39,21 +61,45 @@ public class CategoryResource {
             userId = getUserIdFromToken();
             LOG.debug("Fetching categories for user ID: " + userId);
             
-            List<Category> categories = categoryService.getCategoriesByUserId(userId);
+            // Le rivalidazioni con la versione corrente sono già state risolte da NotModifiedFilter
+            EntityTag etag = new EntityTag(calendarVersions.tag(userId));
             
-            List<CategoryDto> categoryDtos = categories.stream()
-                    .map(this::mapToDto)
-                    .collect(Collectors.toList());
+            Optional<List<Category>> cached = categoryService.getCategoriesByUserIdIfCached(userId);
+            if (cached.isPresent()) {
+                return Uni.createFrom().item(categoriesResponse(cached.get(), etag));
+            }
             
-            return Response.ok(categoryDtos).build();
+            return onWorker(() -> categoriesResponse(categoryService.getCategoriesByUserId(userId), etag))
+                    .onFailure().recoverWithItem(this::categoriesError);
         } catch (Exception e) {
-            LOG.error("Error getting categories", e);
-            return Response.serverError().entity("Error: " + e.getMessage()).build();
+            return Uni.createFrom().item(categoriesError(e));
         }
     }
     
+    private Response categoriesResponse(List<Category> categories, EntityTag etag) {
+        List<CategoryDto> categoryDtos = categories.stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+        
+        return Response.ok(categoryDtos).tag(etag).cacheControl(EventResource.revalidate()).build();
+    }
+    
+    private Response categoriesError(Throwable e) {
+        LOG.error("Error getting categories", e);
+        return Response.serverError().entity("Error: " + e.getMessage()).build();
+    }
+    
+    /**
+     * Esegue fuori dal thread di I/O una lettura che usa il database (JDBC è bloccante); il contesto
+     * della richiesta, e con esso la sessione di Hibernate, viene propagato al worker
+     */
+    private <T> Uni<T> onWorker(Supplier<T> read) {
+        return Uni.createFrom().item(read).runSubscriptionOn(blockingExecutor);
+    }
+    
     @POST
     @RolesAllowed("user")
+    @RunOnVirtualThread
     public Response createCategory(CategoryDto categoryDto) {
         try {
             Long userId = getUserIdFromToken();
@@ -82,6 +128,7 @@ public class CategoryResource {
     @PUT
     @Path("/{id}")
     @RolesAllowed("user")
+    @RunOnVirtualThread
     public Response updateCategory(@PathParam("id") Long id, CategoryDto categoryDto) {
         try {
             Long userId = getUserIdFromToken();
@@ -108,6 +155,7 @@ public class CategoryResource {
     @DELETE
     @Path("/{id}")
     @RolesAllowed("user")
+    @RunOnVirtualThread
     public Response deleteCategory(@PathParam("id") Long id) {
         try {
             Long userId = getUserIdFromToken();
@@ -1,72 +1,262 @@
 package it.calendar.event;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import it.calendar.event.dto.BusyInterval;
+import it.calendar.event.dto.EventBatchResult;
+import it.calendar.event.dto.EventConflictDto;
+import it.calendar.event.dto.EventCursor;
 import it.calendar.event.dto.EventDto;
 import it.calendar.event.model.Event;
+import it.calendar.event.service.CalendarVersions;
+import it.calendar.event.service.ConflictPolicy;
 import it.calendar.event.service.EventService;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
+// Endpoint bloccanti (JDBC): thread virtuali con quarkus.virtual-threads.enabled=true, altrimenti il pool dei worker
 @Path("/events")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
 public class EventResource {
     
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
+    // Eventi in conflitto, separati da virgola, con conflictPolicy=warn
+    private static final String CONFLICTS_HEADER = "X-Event-Conflicts";
+    
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    
+    private static final int MAX_PAGE_SIZE = 500;
+    
+    private static final int MAX_BATCH_SIZE = 1000;
+    
+    // Finestra massima delle ricerche per intervallo e del free/busy: limita le occorrenze
+    // espanse per ogni serie ricorrente, che abbia COUNT, UNTIL o nessuna fine
+    private static final long MAX_RANGE_DAYS = 366;
+    
+    // Numero di eventi scritti tra un flush e l'altro della risposta in streaming
+    private static final int STREAM_FLUSH_INTERVAL = 100;
+    
     @Inject
     EventService eventService;
     
     @Inject
     JsonWebToken jwt;
     
+    @Inject
+    ObjectMapper objectMapper;
+    
+    @Inject
+    CalendarVersions calendarVersions;
+    
     @GET
     @RolesAllowed("user")
+    @CalendarVersioned
     public Response getAllEvents(@QueryParam("start") String startStr, 
-                              @QueryParam("end") String endStr) {
+                              @QueryParam("end") String endStr,
+                              @QueryParam("limit") Integer limit,
+                              @QueryParam("after") String after,
+                              @QueryParam("stream") boolean stream) {
         Long userId = Long.parseLong(jwt.getClaim("userId"));
-        List<Event> events;
+        
+        // Le rivalidazioni con la versione corrente sono già state risolte da NotModifiedFilter
+        EntityTag etag = new EntityTag(calendarVersions.tag(userId));
+        
+        List<EventDto> eventDtos;
         
         // Se sono specificati parametri di ricerca per date, filtra per intervallo
         if (startStr != null && endStr != null) {
-            LocalDateTime start = LocalDateTime.parse(startStr, DateTimeFormatter.ISO_DATE_TIME);
-            LocalDateTime end = LocalDateTime.parse(endStr, DateTimeFormatter.ISO_DATE_TIME);
-            events = eventService.getEventsByUserIdAndDateRange(userId, start, end);
+            LocalDateTime start;
+            LocalDateTime end;
+            try {
+                start = LocalDateTime.parse(startStr, DateTimeFormatter.ISO_DATE_TIME);
+                end = LocalDateTime.parse(endStr, DateTimeFormatter.ISO_DATE_TIME);
+            } catch (DateTimeParseException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("Invalid date format")
+                        .build();
+            }
+            if (end.isBefore(start)) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("End date must be after start date")
+                        .build();
+            }
+            if (tooWide(start, end)) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("Date range cannot exceed " + MAX_RANGE_DAYS + " days")
+                        .build();
+            }
+            eventDtos = eventService.getEventsByUserIdAndDateRange(userId, start, end);
+        } else if (limit != null || after != null) {
+            return getEventsPage(userId, limit, after, etag);
+        } else if (stream) {
+            return Response.ok(streamEvents(userId)).tag(etag).cacheControl(revalidate()).build();
         } else {
-            events = eventService.getEventsByUserId(userId);
+            eventDtos = eventService.getEventsByUserId(userId);
+        }
+        
+        return Response.ok(eventDtos).tag(etag).cacheControl(revalidate()).build();
+    }
+    
+    /**
+     * Restituisce i blocchi occupati dell'utente nell'intervallo, come coppie [start, end]
+     * già fuse: la risposta cresce con il numero di blocchi, non con quello degli eventi.
+     */
+    @GET
+    @Path("/freebusy")
+    @RolesAllowed("user")
+    @CalendarVersioned
+    public Response getFreeBusy(@QueryParam("start") String startStr,
+                                @QueryParam("end") String endStr) {
+        if (startStr == null || endStr == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Start and end are required")
+                    .build();
+        }
+        
+        LocalDateTime start;
+        LocalDateTime end;
+        try {
+            start = LocalDateTime.parse(startStr, DateTimeFormatter.ISO_DATE_TIME);
+            end = LocalDateTime.parse(endStr, DateTimeFormatter.ISO_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Invalid date format")
+                    .build();
+        }
+        if (end.isBefore(start)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("End date must be after start date")
+                    .build();
         }
+        if (tooWide(start, end)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Date range cannot exceed " + MAX_RANGE_DAYS + " days")
+                    .build();
+        }
+        
+        Long userId = Long.parseLong(jwt.getClaim("userId"));
+        
+        EntityTag etag = new EntityTag(calendarVersions.tag(userId));
         
-        List<EventDto> eventDtos = events.stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        List<BusyInterval> busy = eventService.getBusyIntervals(userId, start, end);
         
-        return Response.ok(eventDtos).build();
+        return Response.ok(busy).tag(etag).cacheControl(revalidate()).build();
+    }
+    
+    private static boolean tooWide(LocalDateTime start, LocalDateTime end) {
+        return Duration.between(start, end).compareTo(Duration.ofDays(MAX_RANGE_DAYS)) > 0;
+    }
+    
+    /**
+     * Restituisce una pagina di eventi; se ce ne sono altri, il cursore per la pagina
+     * successiva viene restituito nell'header X-Next-Cursor
+     */
+    private Response getEventsPage(Long userId, Integer limit, String after, EntityTag etag) {
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Limit must be between 1 and " + MAX_PAGE_SIZE)
+                    .build();
+        }
+        
+        EventCursor cursor;
+        try {
+            cursor = after != null ? EventCursor.decode(after) : null;
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build();
+        }
+        
+        // Un elemento in più indica se esiste una pagina successiva
+        List<EventDto> eventDtos = eventService.getEventsPageByUserId(userId, cursor, pageSize + 1);
+        boolean hasMore = eventDtos.size() > pageSize;
+        if (hasMore) {
+            eventDtos = eventDtos.subList(0, pageSize);
+        }
+        
+        Response.ResponseBuilder response = Response.ok(eventDtos).tag(etag).cacheControl(revalidate());
+        if (hasMore) {
+            EventDto last = eventDtos.get(eventDtos.size() - 1);
+            response.header(NEXT_CURSOR_HEADER, new EventCursor(last.getStartDateTime(), last.getId()).encode());
+        }
+        
+        return response.build();
+    }
+    
+    /**
+     * Scrive gli eventi dell'utente direttamente sulla risposta man mano che vengono letti
+     * dal database, senza costruire la lista dei DTO.
+     * Non avendo una lunghezza nota, la risposta viene inviata con chunked encoding.
+     */
+    private StreamingOutput streamEvents(Long userId) {
+        return output -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                generator.writeStartArray();
+                
+                int[] written = {0};
+                eventService.streamEventsByUserId(userId, eventDto -> {
+                    try {
+                        generator.writeObject(eventDto);
+                        if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
     }
     
     @POST
     @RolesAllowed("user")
-    public Response createEvent(EventDto eventDto) {
+    public Response createEvent(EventDto eventDto, @QueryParam("conflictPolicy") String conflictPolicy) {
         Long userId = Long.parseLong(jwt.getClaim("userId"));
         
         try {
-            Event event = eventService.createEvent(
+            EventService.EventWrite write = eventService.createEvent(
                     eventDto.getTitle(),
                     eventDto.getDescription(),
                     eventDto.getStartDateTime(),
                     eventDto.getEndDateTime(),
                     userId,
-                    eventDto.getCategoryId()
+                    eventDto.getCategoryId(),
+                    eventDto.getRecurrenceRule(),
+                    eventDto.getRecurrenceExceptions(),
+                    ConflictPolicy.from(conflictPolicy)
             );
             
-            return Response.status(Response.Status.CREATED)
-                    .entity(mapToDto(event))
+            if (write.event() == null) {
+                return conflictResponse(write.conflicts());
+            }
+            return withConflicts(Response.status(Response.Status.CREATED), write.conflicts())
+                    .entity(mapToDto(write.event()))
                     .build();
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
@@ -75,24 +265,70 @@ public class EventResource {
         }
     }
     
+    /**
+     * Crea più eventi con una sola richiesta e una sola transazione.
+     * Restituisce un esito per ogni evento, nello stesso ordine della richiesta.
+     */
+    @POST
+    @Path("/batch")
+    @RolesAllowed("user")
+    public Response createEvents(List<EventDto> eventDtos) {
+        Long userId = Long.parseLong(jwt.getClaim("userId"));
+        
+        if (eventDtos == null || eventDtos.isEmpty() || eventDtos.size() > MAX_BATCH_SIZE) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Batch must contain between 1 and " + MAX_BATCH_SIZE + " events")
+                    .build();
+        }
+        
+        List<EventService.BatchItem> items = eventService.createEvents(eventDtos, userId);
+        
+        List<EventBatchResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            EventService.BatchItem item = items.get(i);
+            if (item.event() != null) {
+                results.add(new EventBatchResult(i, Response.Status.CREATED.getStatusCode(), mapToDto(item.event()), null));
+            } else {
+                results.add(new EventBatchResult(i, Response.Status.BAD_REQUEST.getStatusCode(), null, item.error()));
+            }
+        }
+        
+        return Response.ok(results).build();
+    }
+    
     @PUT
     @Path("/{id}")
     @RolesAllowed("user")
-    public Response updateEvent(@PathParam("id") Long id, EventDto eventDto) {
+    public Response updateEvent(@PathParam("id") Long id, EventDto eventDto,
+                                @QueryParam("conflictPolicy") String conflictPolicy) {
         Long userId = Long.parseLong(jwt.getClaim("userId"));
         
-        Optional<Event> updatedEvent = eventService.updateEvent(
-                id,
-                eventDto.getTitle(),
-                eventDto.getDescription(),
-                eventDto.getStartDateTime(),
-                eventDto.getEndDateTime(),
-                userId,
-                eventDto.getCategoryId()
-        );
-        
-        if (updatedEvent.isPresent()) {
-            return Response.ok(mapToDto(updatedEvent.get())).build();
+        EventService.EventWrite write;
+        try {
+            write = eventService.updateEvent(
+                    id,
+                    eventDto.getTitle(),
+                    eventDto.getDescription(),
+                    eventDto.getStartDateTime(),
+                    eventDto.getEndDateTime(),
+                    userId,
+                    eventDto.getCategoryId(),
+                    eventDto.getRecurrenceRule(),
+                    eventDto.getRecurrenceExceptions(),
+                    ConflictPolicy.from(conflictPolicy)
+            );
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build();
+        }
+        
+        if (write.event() != null) {
+            return withConflicts(Response.ok(), write.conflicts())
+                    .entity(mapToDto(write.event()))
+                    .build();
+        } else if (!write.conflicts().isEmpty()) {
+            return conflictResponse(write.conflicts());
         } else {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
@@ -113,6 +349,30 @@ public class EventResource {
         }
     }
     
+    /**
+     * Le risposte possono essere conservate solo dal client, che deve sempre rivalidarle con If-None-Match
+     */
+    static CacheControl revalidate() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setPrivate(true);
+        cacheControl.setNoCache(true);
+        cacheControl.setNoTransform(false);
+        return cacheControl;
+    }
+    
+    private Response conflictResponse(List<Long> conflicts) {
+        return Response.status(Response.Status.CONFLICT)
+                .entity(new EventConflictDto("Event overlaps existing events", conflicts))
+                .build();
+    }
+    
+    private Response.ResponseBuilder withConflicts(Response.ResponseBuilder response, List<Long> conflicts) {
+        if (!conflicts.isEmpty()) {
+            response.header(CONFLICTS_HEADER, conflicts.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        }
+        return response;
+    }
+    
     private EventDto mapToDto(Event event) {
         EventDto dto = new EventDto();
         dto.setId(event.id);
@@ -127,6 +387,9 @@ public class EventResource {
             dto.setCategoryColor(event.category.color);
         }
         
+        dto.setRecurrenceRule(event.recurrenceRule);
+        dto.setRecurrenceExceptions(event.recurrenceExceptions);
+        
         return dto;
     }
 }
\ No newline at end of file
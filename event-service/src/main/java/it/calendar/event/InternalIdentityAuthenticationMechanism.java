@@ -0,0 +1,92 @@
+package it.calendar.event;
+
+import io.quarkus.security.identity.IdentityProviderManager;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.quarkus.security.identity.request.AuthenticationRequest;
+import io.quarkus.security.runtime.QuarkusSecurityIdentity;
+import io.quarkus.vertx.http.runtime.security.ChallengeData;
+import io.quarkus.vertx.http.runtime.security.HttpAuthenticationMechanism;
+import io.smallrye.jwt.auth.principal.DefaultJWTCallerPrincipal;
+import io.smallrye.mutiny.Uni;
+import io.vertx.ext.web.RoutingContext;
+import it.calendar.common.security.InternalIdentity;
+import it.calendar.common.security.InternalIdentitySigner;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.jwt.Claims;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.jose4j.jwt.JwtClaims;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Autenticazione delle richieste inoltrate dall'api-gateway con l'identità già verificata.
+ *
+ * Il gateway sostituisce il JWT con l'header X-Calendar-Identity firmato con il segreto
+ * condiviso (formato e firma in InternalIdentitySigner di calendar-common).
+ *
+ * Un header assente o non valido non chiude la richiesta: l'autenticazione prosegue con il
+ * meccanismo JWT, quindi un client con un bearer valido viene accettato comunque e uno senza
+ * riceve il 401 di quel meccanismo. Senza segreto configurato resta solo l'autenticazione JWT.
+ */
+@ApplicationScoped
+public class InternalIdentityAuthenticationMechanism implements HttpAuthenticationMechanism {
+
+    @ConfigProperty(name = "calendar.internal-identity.secret")
+    Optional<String> secret;
+
+    private InternalIdentitySigner signer;
+
+    @PostConstruct
+    void init() {
+        signer = secret.map(InternalIdentitySigner::new).orElse(null);
+    }
+
+    @Override
+    public Uni<SecurityIdentity> authenticate(RoutingContext context, IdentityProviderManager identityProviderManager) {
+        String header = context.request().getHeader(InternalIdentity.HEADER);
+        if (header == null || signer == null) {
+            return Uni.createFrom().nullItem();
+        }
+
+        Optional<InternalIdentity> identity = signer.verify(header, System.currentTimeMillis() / 1000);
+        if (identity.isEmpty()) {
+            return Uni.createFrom().nullItem();
+        }
+
+        JsonWebToken principal = toPrincipal(identity.get());
+        return Uni.createFrom().item(QuarkusSecurityIdentity.builder()
+                .setPrincipal(principal)
+                .addRoles(principal.getGroups())
+                .build());
+    }
+
+    // L'identità diventa un JsonWebToken con gli stessi claim usati dalle risorse (userId, sub, groups)
+    private static JsonWebToken toPrincipal(InternalIdentity identity) {
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject(identity.userId());
+        claims.setClaim("userId", identity.userId());
+        claims.setStringListClaim(Claims.groups.name(), identity.groups());
+        claims.setClaim(Claims.exp.name(), identity.expiresAt());
+        return new DefaultJWTCallerPrincipal(claims);
+    }
+
+    @Override
+    public Uni<ChallengeData> getChallenge(RoutingContext context) {
+        // La risposta 401 resta quella del meccanismo JWT (WWW-Authenticate: Bearer)
+        return Uni.createFrom().nullItem();
+    }
+
+    @Override
+    public Set<Class<? extends AuthenticationRequest>> getCredentialTypes() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public int getPriority() {
+        return DEFAULT_PRIORITY + 1;
+    }
+}
@@ -0,0 +1,45 @@
+package it.calendar.event;
+
+import io.quarkus.security.identity.SecurityIdentity;
+import it.calendar.event.service.CalendarVersions;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+
+import java.util.Optional;
+
+/**
+ * Risponde 304 alle GET condizionali sui metodi @CalendarVersioned quando il client ha già la
+ * versione corrente del calendario.
+ *
+ * Il filtro gira sul thread di I/O, prima che la richiesta passi a un worker: la versione è in
+ * memoria, quindi una rivalidazione non occupa mai un thread del pool, che resta a disposizione
+ * delle letture dal database.
+ */
+public class NotModifiedFilter {
+
+    @Inject
+    CalendarVersions calendarVersions;
+
+    @Inject
+    SecurityIdentity identity;
+
+    @CalendarVersioned
+    @ServerRequestFilter(nonBlocking = true)
+    public Optional<Response> notModified(Request request) {
+        // Le richieste senza il ruolo proseguono fino al controllo di @RolesAllowed
+        if (!identity.hasRole("user") || !(identity.getPrincipal() instanceof JsonWebToken)) {
+            return Optional.empty();
+        }
+
+        JsonWebToken jwt = (JsonWebToken) identity.getPrincipal();
+        Long userId = Long.parseLong(jwt.getClaim("userId"));
+
+        EntityTag etag = new EntityTag(calendarVersions.tag(userId));
+        return Optional.ofNullable(request.evaluatePreconditions(etag))
+                .map(notModified -> notModified.cacheControl(EventResource.revalidate()).build());
+    }
+}
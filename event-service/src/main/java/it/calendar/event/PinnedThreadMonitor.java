@@ -0,0 +1,101 @@
+package it.calendar.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Rileva i thread virtuali che restano bloccati sul proprio carrier (pinning), per esempio
+ * quando si sospendono dentro un blocco synchronized del driver JDBC, con l'evento JFR
+ * jdk.VirtualThreadPinned.
+ *
+ * Ogni episodio più lungo di calendar.virtual-threads.pinning-threshold incrementa il counter
+ * virtual.threads.pinned (tag path: jdbc o other) e viene registrato nel log con lo stack.
+ * Il monitor è attivo solo con quarkus.virtual-threads.enabled=true.
+ */
+@ApplicationScoped
+public class PinnedThreadMonitor {
+
+    private static final Logger LOG = Logger.getLogger(PinnedThreadMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final String COUNTER = "virtual.threads.pinned";
+
+    // Frame del pool di connessioni, di Hibernate e dei driver: il thread era in una chiamata al database
+    private static final List<String> JDBC_FRAMES = List.of("io.agroal.", "org.hibernate.", "org.h2.", "org.postgresql.");
+
+    private static final int LOGGED_FRAMES = 8;
+
+    @ConfigProperty(name = "quarkus.virtual-threads.enabled", defaultValue = "false")
+    boolean virtualThreads;
+
+    @ConfigProperty(name = "calendar.virtual-threads.pinning-threshold", defaultValue = "20MS")
+    Duration threshold;
+
+    @Inject
+    MeterRegistry registry;
+
+    private RecordingStream stream;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!virtualThreads) {
+            return;
+        }
+
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::pinned);
+        stream.startAsync();
+        LOG.info("Virtual thread pinning detection enabled, threshold " + threshold.toMillis() + " ms");
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Numero di episodi di pinning rilevati dall'avvio
+     */
+    public long pinnedCount() {
+        return (long) registry.find(COUNTER).counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private void pinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null
+                ? event.getStackTrace().getFrames()
+                : List.of();
+        String path = frames.stream().anyMatch(PinnedThreadMonitor::isJdbc) ? "jdbc" : "other";
+
+        registry.counter(COUNTER, "path", path).increment();
+        LOG.warnf("Virtual thread pinned for %d ms (%s) at %s", event.getDuration().toMillis(), path, describe(frames));
+    }
+
+    private static boolean isJdbc(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return JDBC_FRAMES.stream().anyMatch(type::startsWith);
+    }
+
+    private static String describe(List<RecordedFrame> frames) {
+        return frames.stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber())
+                .collect(Collectors.joining(" <- "));
+    }
+}
@@ -0,0 +1,12 @@
+package it.calendar.event.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Blocco di tempo occupato, serializzato come coppia compatta {@code [start, end]}
+ */
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+public record BusyInterval(LocalDateTime start, LocalDateTime end) {
+}
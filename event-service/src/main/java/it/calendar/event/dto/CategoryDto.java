@@ -11,6 +11,16 @@ public class CategoryDto {
     
     private String color;
     
+    public CategoryDto() {
+    }
+    
+    // Usato dalle proiezioni JPQL di CategoryRepository
+    public CategoryDto(Long id, String name, String color) {
+        this.id = id;
+        this.name = name;
+        this.color = color;
+    }
+    
     // Getters and setters
     public Long getId() {
         return id;
@@ -0,0 +1,60 @@
+package it.calendar.event.dto;
+
+/**
+ * Esito di un singolo evento in una creazione in blocco
+ */
+public class EventBatchResult {
+    
+    // Posizione dell'evento nella richiesta
+    private int index;
+    
+    // Stato HTTP equivalente alla creazione singola (201 o 400)
+    private int status;
+    
+    private EventDto event;
+    
+    private String error;
+    
+    public EventBatchResult() {
+    }
+    
+    public EventBatchResult(int index, int status, EventDto event, String error) {
+        this.index = index;
+        this.status = status;
+        this.event = event;
+        this.error = error;
+    }
+    
+    // Getters and setters
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
+    public int getStatus() {
+        return status;
+    }
+    
+    public void setStatus(int status) {
+        this.status = status;
+    }
+    
+    public EventDto getEvent() {
+        return event;
+    }
+    
+    public void setEvent(EventDto event) {
+        this.event = event;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
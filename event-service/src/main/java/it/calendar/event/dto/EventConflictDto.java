@@ -0,0 +1,38 @@
+package it.calendar.event.dto;
+
+import java.util.List;
+
+/**
+ * Risposta a una creazione o modifica rifiutata per sovrapposizione con altri eventi
+ */
+public class EventConflictDto {
+    
+    private String message;
+    
+    private List<Long> conflictingEventIds;
+    
+    public EventConflictDto() {
+    }
+    
+    public EventConflictDto(String message, List<Long> conflictingEventIds) {
+        this.message = message;
+        this.conflictingEventIds = conflictingEventIds;
+    }
+    
+    // Getters and setters
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public List<Long> getConflictingEventIds() {
+        return conflictingEventIds;
+    }
+    
+    public void setConflictingEventIds(List<Long> conflictingEventIds) {
+        this.conflictingEventIds = conflictingEventIds;
+    }
+}
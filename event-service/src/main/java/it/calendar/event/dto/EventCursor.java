@@ -0,0 +1,42 @@
+package it.calendar.event.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posizione opaca nella lista degli eventi di un utente, ordinata per (startDateTime, id).
+ * Viene scambiata con il client come stringa base64 url-safe.
+ */
+public record EventCursor(LocalDateTime startDateTime, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = startDateTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursore ricevuto dal client
+     *
+     * @param value Cursore codificato
+     * @return Il cursore decodificato
+     * @throws IllegalArgumentException se il cursore non è valido
+     */
+    public static EventCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+
+            return new EventCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
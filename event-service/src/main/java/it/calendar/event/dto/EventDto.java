@@ -3,6 +3,7 @@ package it.calendar.event.dto;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class EventDto {
     
@@ -24,6 +25,30 @@ public class EventDto {
     
     private String categoryColor;
     
+    private String recurrenceRule;
+    
+    private List<LocalDateTime> recurrenceExceptions;
+    
+    public EventDto() {
+    }
+    
+    // Usato dalle query di proiezione di EventRepository
+    public EventDto(Long id, String title, String description,
+                    LocalDateTime startDateTime, LocalDateTime endDateTime,
+                    Long categoryId, String categoryName, String categoryColor,
+                    String recurrenceRule, List<LocalDateTime> recurrenceExceptions) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.startDateTime = startDateTime;
+        this.endDateTime = endDateTime;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.categoryColor = categoryColor;
+        this.recurrenceRule = recurrenceRule;
+        this.recurrenceExceptions = recurrenceExceptions;
+    }
+    
     // Getters and setters
     public Long getId() {
         return id;
@@ -88,4 +113,20 @@ public class EventDto {
     public void setCategoryColor(String categoryColor) {
         this.categoryColor = categoryColor;
     }
+    
+    public String getRecurrenceRule() {
+        return recurrenceRule;
+    }
+    
+    public void setRecurrenceRule(String recurrenceRule) {
+        this.recurrenceRule = recurrenceRule;
+    }
+    
+    public List<LocalDateTime> getRecurrenceExceptions() {
+        return recurrenceExceptions;
+    }
+    
+    public void setRecurrenceExceptions(List<LocalDateTime> recurrenceExceptions) {
+        this.recurrenceExceptions = recurrenceExceptions;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package it.calendar.event.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tempi di un evento così come sono memorizzati, per costruire l'indice degli intervalli:
+ * per una serie ricorrente start ed end sono quelli della prima occorrenza
+ */
+public record EventInterval(Long id, LocalDateTime start, LocalDateTime end, String recurrenceRule) {
+}
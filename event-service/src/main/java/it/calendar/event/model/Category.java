@@ -1,12 +1,15 @@
 package it.calendar.event.model;
 
 import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 
+// Nella cache di secondo livello di Hibernate, dimensionata in application.properties
 @Entity
+@Cacheable
 @Table(name = "categories")
 public class Category extends PanacheEntity {
     
@@ -5,8 +5,12 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
+// Nella cache di secondo livello di Hibernate, dimensionata in application.properties
 @Entity
+@Cacheable
 @Table(name = "events")
 public class Event extends PanacheEntity {
     
@@ -27,6 +31,15 @@ public class Event extends PanacheEntity {
     @JoinColumn(name = "category_id")
     public Category category;
     
+    // Regola di ricorrenza (sottoinsieme di RRULE), null per gli eventi singoli.
+    // Una serie è memorizzata come un'unica riga: le occorrenze vengono calcolate in lettura
+    public String recurrenceRule;
+    
+    // Occorrenze escluse dalla serie (EXDATE), identificate dalla data di inizio
+    @Convert(converter = LocalDateTimeListConverter.class)
+    @Column(length = 4000)
+    public List<LocalDateTime> recurrenceExceptions = new ArrayList<>();
+    
     // Costruttore vuoto richiesto da JPA
     public Event() {
     }
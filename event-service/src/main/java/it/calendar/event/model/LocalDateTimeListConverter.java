@@ -0,0 +1,47 @@
+package it.calendar.event.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memorizza una lista di date come testo separato da virgole (formato ISO),
+ * per evitare una tabella e una join aggiuntive per le eccezioni delle ricorrenze
+ */
+@Converter
+public class LocalDateTimeListConverter implements AttributeConverter<List<LocalDateTime>, String> {
+
+    private static final String SEPARATOR = ",";
+
+    @Override
+    public String convertToDatabaseColumn(List<LocalDateTime> dateTimes) {
+        if (dateTimes == null || dateTimes.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder value = new StringBuilder();
+        for (LocalDateTime dateTime : dateTimes) {
+            if (value.length() > 0) {
+                value.append(SEPARATOR);
+            }
+            value.append(dateTime);
+        }
+        return value.toString();
+    }
+
+    @Override
+    public List<LocalDateTime> convertToEntityAttribute(String value) {
+        List<LocalDateTime> dateTimes = new ArrayList<>();
+        if (value == null || value.isEmpty()) {
+            return dateTimes;
+        }
+
+        for (String dateTime : value.split(SEPARATOR)) {
+            dateTimes.add(LocalDateTime.parse(dateTime));
+        }
+        return dateTimes;
+    }
+}
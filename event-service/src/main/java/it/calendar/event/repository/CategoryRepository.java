@@ -1,8 +1,11 @@
 package it.calendar.event.repository;
 
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import it.calendar.event.dto.CategoryDto;
 import it.calendar.event.model.Category;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.QueryProducer;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,14 +13,24 @@ import java.util.Optional;
 @ApplicationScoped
 public class CategoryRepository implements PanacheRepository<Category> {
     
+    // Regione della cache delle query, invalidata da Hibernate a ogni modifica della tabella categories.
+    // Serve le ricerche per ID e per nome: l'elenco per utente passa dalla cache user-categories
+    private static final String QUERY_CACHE_REGION = "category-queries";
+    
     /**
-     * Trova tutte le categorie appartenenti a un utente specifico
+     * Trova le categorie di un utente come DTO. Essendo una proiezione, legge sempre i valori
+     * correnti dal database anche se le entità sono già nel contesto di persistenza.
      * 
+     * @param session Sessione su cui eseguire la query, del primario o della replica (vedi ReadRouting)
      * @param userId ID dell'utente
-     * @return Lista di categorie
+     * @return Lista di DTO delle categorie
      */
-    public List<Category> findByUserId(Long userId) {
-        return list("userId", userId);
+    public List<CategoryDto> findDtosByUserId(QueryProducer session, Long userId) {
+        return session
+                .createSelectionQuery("select new it.calendar.event.dto.CategoryDto(c.id, c.name, c.color) "
+                        + "from Category c where c.userId = ?1", CategoryDto.class)
+                .setParameter(1, userId)
+                .getResultList();
     }
     
     /**
@@ -28,7 +41,10 @@ public class CategoryRepository implements PanacheRepository<Category> {
      * @return Optional con la categoria, se trovata
      */
     public Optional<Category> findByNameAndUserId(String name, Long userId) {
-        return find("name = ?1 and userId = ?2", name, userId).firstResultOptional();
+        return find("name = ?1 and userId = ?2", name, userId)
+                .withHint(HibernateHints.HINT_CACHEABLE, true)
+                .withHint(HibernateHints.HINT_CACHE_REGION, QUERY_CACHE_REGION)
+                .firstResultOptional();
     }
     
     /**
@@ -43,7 +59,10 @@ public class CategoryRepository implements PanacheRepository<Category> {
             return Optional.empty();
         }
         
-        return find("id = ?1 and userId = ?2", categoryId, userId).firstResultOptional();
+        return find("id = ?1 and userId = ?2", categoryId, userId)
+                .withHint(HibernateHints.HINT_CACHEABLE, true)
+                .withHint(HibernateHints.HINT_CACHE_REGION, QUERY_CACHE_REGION)
+                .firstResultOptional();
     }
     
     /**
@@ -1,37 +1,165 @@
 package it.calendar.event.repository;
 
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import it.calendar.event.dto.EventCursor;
+import it.calendar.event.dto.EventDto;
+import it.calendar.event.dto.EventInterval;
 import it.calendar.event.model.Event;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.QueryProducer;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @ApplicationScoped
 public class EventRepository implements PanacheRepository<Event> {
     
+    // Regione della cache delle query, invalidata da Hibernate a ogni modifica della tabella events.
+    // Serve solo le ricerche per ID e utente: le letture per intervallo passano dall'indice e da findDtosByIds
+    private static final String QUERY_CACHE_REGION = "event-queries";
+    
+    // Righe lette dal driver JDBC per ogni round trip durante lo scorrimento
+    private static final int SCROLL_FETCH_SIZE = 200;
+    
+    // Proiezione degli eventi con i dati della categoria in un'unica query: niente
+    // select aggiuntive per le categorie e nessuna entità gestita da idratare
+    private static final String DTO_SELECT = "select new it.calendar.event.dto.EventDto("
+            + "e.id, e.title, e.description, e.startDateTime, e.endDateTime, c.id, c.name, c.color, "
+            + "e.recurrenceRule, e.recurrenceExceptions) "
+            + "from Event e left join e.category c ";
+    
     /**
-     * Trova tutti gli eventi appartenenti a un utente specifico
+     * Trova tutti gli eventi di un utente come DTO, ordinati per (startDateTime, id)
      * 
+     * @param session Sessione su cui eseguire la query, del primario o della replica (vedi ReadRouting)
      * @param userId ID dell'utente
-     * @return Lista di eventi
+     * @return Lista di DTO degli eventi
      */
-    public List<Event> findByUserId(Long userId) {
-        return list("userId", userId);
+    public List<EventDto> findDtosByUserId(QueryProducer session, Long userId) {
+        return session
+                .createSelectionQuery(DTO_SELECT + "where e.userId = ?1 order by e.startDateTime, e.id", EventDto.class)
+                .setParameter(1, userId)
+                .getResultList();
     }
     
     /**
-     * Trova gli eventi di un utente in un determinato intervallo di date
+     * Trova una pagina di eventi di un utente con paginazione keyset, ordinati per (startDateTime, id).
+     * La query parte dalla posizione del cursore invece di saltare le righe precedenti,
+     * quindi il costo non dipende da quanto si è avanti nella lista.
      * 
      * @param userId ID dell'utente
-     * @param start Data di inizio
-     * @param end Data di fine
-     * @return Lista di eventi
+     * @param after Cursore dell'ultimo evento già restituito, null per la prima pagina
+     * @param limit Numero massimo di eventi
+     * @return Lista di DTO degli eventi
+     */
+    public List<EventDto> findDtoPageByUserId(Long userId, EventCursor after, int limit) {
+        if (after == null) {
+            return getEntityManager()
+                    .createQuery(DTO_SELECT + "where e.userId = ?1 order by e.startDateTime, e.id", EventDto.class)
+                    .setParameter(1, userId)
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+        
+        return getEntityManager()
+                .createQuery(DTO_SELECT + "where e.userId = ?1 and (e.startDateTime > ?2 or (e.startDateTime = ?2 and e.id > ?3)) "
+                        + "order by e.startDateTime, e.id", EventDto.class)
+                .setParameter(1, userId)
+                .setParameter(2, after.startDateTime())
+                .setParameter(3, after.id())
+                .setMaxResults(limit)
+                .getResultList();
+    }
+    
+    /**
+     * Scorre tutti gli eventi di un utente come DTO con un cursore JDBC forward-only,
+     * ordinati per (startDateTime, id). Le righe non diventano entità gestite, quindi
+     * la memoria occupata non cresce con il numero di eventi.
+     * Deve essere invocato all'interno di una transazione.
+     * 
+     * @param userId ID dell'utente
+     * @param consumer Destinatario di ogni evento letto
+     */
+    public void scrollDtosByUserId(Long userId, Consumer<EventDto> consumer) {
+        Session session = getEntityManager().unwrap(Session.class);
+        
+        try (ScrollableResults<EventDto> results = session
+                .createSelectionQuery(DTO_SELECT + "where e.userId = ?1 order by e.startDateTime, e.id", EventDto.class)
+                .setParameter(1, userId)
+                .setFetchSize(SCROLL_FETCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept(results.get());
+            }
+        }
+    }
+    
+    /**
+     * Carica solo id, inizio, fine e regola di ricorrenza degli eventi di un utente,
+     * per costruire l'indice degli intervalli
+     * 
+     * @param userId ID dell'utente
+     * @return Lista di intervalli
+     */
+    public List<EventInterval> findIntervalsByUserId(Long userId) {
+        return getEntityManager()
+                .createQuery("select new it.calendar.event.dto.EventInterval(e.id, e.startDateTime, e.endDateTime, e.recurrenceRule) "
+                        + "from Event e where e.userId = ?1", EventInterval.class)
+                .setParameter(1, userId)
+                .getResultList();
+    }
+    
+    /**
+     * Trova gli eventi con gli ID specificati come DTO, ordinati per data di inizio
+     * 
+     * @param session Sessione su cui eseguire la query, del primario o della replica (vedi ReadRouting)
+     * @param eventIds ID degli eventi
+     * @return Lista di DTO degli eventi
+     */
+    public List<EventDto> findDtosByIds(QueryProducer session, List<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        return session
+                .createSelectionQuery(DTO_SELECT + "where e.id in ?1 order by e.startDateTime, e.id", EventDto.class)
+                .setParameter(1, eventIds)
+                .getResultList();
+    }
+    
+    /**
+     * Trova i soli dati temporali degli eventi con gli ID specificati, ordinati per data di inizio.
+     * Titolo, descrizione e categoria non vengono letti.
+     * 
+     * @param eventIds ID degli eventi
+     * @return Lista di DTO con id, date e ricorrenza valorizzati
      */
-    public List<Event> findByUserIdAndDateRange(Long userId, LocalDateTime start, LocalDateTime end) {
-        return list("userId = ?1 and startDateTime >= ?2 and startDateTime <= ?3", 
-                    userId, start, end);
+    public List<EventDto> findTimingsByIds(List<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        List<Object[]> rows = getEntityManager()
+                .createQuery("select e.id, e.startDateTime, e.endDateTime, e.recurrenceRule, e.recurrenceExceptions "
+                        + "from Event e where e.id in ?1 order by e.startDateTime, e.id", Object[].class)
+                .setParameter(1, eventIds)
+                .getResultList();
+        
+        List<EventDto> timings = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            @SuppressWarnings("unchecked")
+            List<LocalDateTime> exceptions = (List<LocalDateTime>) row[4];
+            timings.add(new EventDto((Long) row[0], null, null, (LocalDateTime) row[1], (LocalDateTime) row[2],
+                    null, null, null, (String) row[3], exceptions));
+        }
+        return timings;
     }
     
     /**
@@ -42,7 +170,10 @@ public class EventRepository implements PanacheRepository<Event> {
      * @return Optional con l'evento, se trovato
      */
     public Optional<Event> findByIdAndUserId(Long eventId, Long userId) {
-        return find("id = ?1 and userId = ?2", eventId, userId).firstResultOptional();
+        return find("id = ?1 and userId = ?2", eventId, userId)
+                .withHint(HibernateHints.HINT_CACHEABLE, true)
+                .withHint(HibernateHints.HINT_CACHE_REGION, QUERY_CACHE_REGION)
+                .firstResultOptional();
     }
     
     /**
@@ -53,6 +184,10 @@ public class EventRepository implements PanacheRepository<Event> {
      * @return true se l'evento è stato eliminato, false altrimenti
      */
     public boolean deleteByIdAndUserId(Long eventId, Long userId) {
-        return delete("id = ?1 and userId = ?2", eventId, userId) > 0;
+        // Una delete HQL svuoterebbe l'intera regione degli eventi nella cache di secondo livello:
+        // eliminando l'entità viene rimossa solo la sua voce, e la lettura arriva di solito dalla cache
+        Optional<Event> event = findByIdAndUserId(eventId, userId);
+        event.ifPresent(this::delete);
+        return event.isPresent();
     }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package it.calendar.event.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.hibernate.Session;
+
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versione del calendario di ogni utente (eventi e categorie), incrementata a ogni modifica.
+ *
+ * Le versioni vivono in memoria e ripartono da zero a ogni avvio: il tag include quindi un
+ * identificativo casuale dell'istanza, così un tag emesso prima di un riavvio (o da un'altra
+ * istanza) non coincide mai con uno nuovo.
+ *
+ * Ogni modifica incrementa anche la riga dell'utente in calendar_versions, nella stessa
+ * transazione, e la versione in memoria prende il valore scritto nel database. Una replica la cui
+ * riga ha raggiunto la versione del tag contiene quindi tutte le modifiche che il tag descrive.
+ *
+ * Insieme alla versione viene registrato l'istante dell'ultima modifica, usato da ReadRouting
+ * per tenere sul primario le letture di chi ha appena scritto.
+ */
+@ApplicationScoped
+public class CalendarVersions {
+
+    private final String instanceId = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+
+    private final ConcurrentHashMap<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    // Istante (System.nanoTime) dell'ultima modifica di ogni utente
+    private final ConcurrentHashMap<Long, Long> changedAt = new ConcurrentHashMap<>();
+
+    @Inject
+    TransactionCallbacks transactionCallbacks;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @Inject
+    Session session;
+
+    @Inject
+    CalendarWriteLocks calendarWriteLocks;
+
+    /**
+     * Tag della versione corrente del calendario dell'utente.
+     * Va letto prima di interrogare il database: una modifica concorrente produce al più
+     * un tag vecchio per dati nuovi, che alla richiesta successiva non corrisponderà.
+     *
+     * @param userId ID dell'utente
+     * @return Tag opaco, da usare come ETag
+     */
+    public String tag(Long userId) {
+        return instanceId + "-" + version(userId);
+    }
+
+    /**
+     * Versione corrente del calendario dell'utente nota a questa istanza
+     *
+     * @param userId ID dell'utente
+     * @return Versione, 0 se l'istanza non ha ancora visto modifiche dell'utente
+     */
+    public long version(Long userId) {
+        AtomicLong version = versions.get(userId);
+        return version != null ? version.get() : 0;
+    }
+
+    /**
+     * Versione del calendario dell'utente registrata nel database della connessione
+     *
+     * @param connection Connessione da interrogare, ad esempio quella della replica
+     * @param userId ID dell'utente
+     * @return Versione, 0 se l'utente non ha mai modificato il calendario
+     */
+    public long storedVersion(Connection connection, Long userId) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("select version from calendar_versions where userId = ?")) {
+            select.setLong(1, userId);
+            try (ResultSet row = select.executeQuery()) {
+                return row.next() ? row.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Incrementa la versione dell'utente nel database, nella transazione corrente, e in memoria
+     * dopo il commit. Incrementare in memoria prima del commit permetterebbe di associare il
+     * nuovo tag a dati non ancora visibili.
+     *
+     * @param userId ID dell'utente
+     * @throws IllegalStateException se non c'è una transazione attiva
+     */
+    public void bumpAfterCommit(Long userId) {
+        if (transactionSynchronizationRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            throw new IllegalStateException("Calendar versions can only change inside a transaction");
+        }
+
+        // Sotto lock due modifiche concorrenti dello stesso utente non inseriscono entrambe la riga
+        calendarWriteLocks.lock(userId);
+        long stored = session.doReturningWork(connection -> {
+            if (execute(connection, "update calendar_versions set version = version + 1 where userId = ?", userId) == 0) {
+                execute(connection, "insert into calendar_versions (userId, version) values (?, 1)", userId);
+            }
+            return storedVersion(connection, userId);
+        });
+
+        transactionCallbacks.afterCommit(() -> {
+            versions.computeIfAbsent(userId, id -> new AtomicLong()).accumulateAndGet(stored, Math::max);
+            changedAt.put(userId, System.nanoTime());
+        });
+    }
+
+    // La riga non è un'entità: JDBC diretto, senza flush né invalidazioni della cache di secondo livello
+    private static int execute(Connection connection, String sql, Long userId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, userId);
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Indica se il calendario dell'utente è stato modificato da questa istanza nell'ultimo periodo
+     *
+     * @param userId ID dell'utente
+     * @param window Ampiezza del periodo
+     * @return true se l'ultima modifica nota è più recente di window
+     */
+    public boolean changedWithin(Long userId, Duration window) {
+        Long changed = changedAt.get(userId);
+        return changed != null && System.nanoTime() - changed < window.toNanos();
+    }
+}
@@ -0,0 +1,71 @@
+package it.calendar.event.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Serializza le scritture sul calendario (eventi e categorie) di ciascun utente. Il lock viene preso dentro la
+ * transazione e rilasciato solo al suo termine, dopo le azioni di afterCommit: chi lo ottiene
+ * dopo vede già aggiornati sia il database sia l'indice degli intervalli, quindi un controllo
+ * dei conflitti fatto sotto lock non può ignorare una scrittura concorrente.
+ *
+ * I lock sono ripartiti in un numero fisso di segmenti per id utente, così la memoria non cresce
+ * con gli utenti; due utenti possono condividere un segmento. Una transazione scrive il calendario
+ * di un solo utente e riprende senza attendere un lock che già possiede. Come l'indice e le
+ * versioni, i lock valgono per la singola istanza.
+ */
+@ApplicationScoped
+public class CalendarWriteLocks {
+
+    private static final int STRIPES = 64;
+
+    private final Semaphore[] stripes = new Semaphore[STRIPES];
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @Inject
+    TransactionCallbacks transactionCallbacks;
+
+    public CalendarWriteLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Semaphore(1);
+        }
+    }
+
+    /**
+     * Acquisisce il lock dell'utente fino al termine della transazione corrente
+     *
+     * @param userId ID dell'utente
+     * @throws IllegalStateException se non c'è una transazione attiva
+     */
+    @SuppressWarnings("unchecked")
+    public void lock(Long userId) {
+        Set<Semaphore> held = (Set<Semaphore>) transactionSynchronizationRegistry.getResource(CalendarWriteLocks.class);
+        if (held == null) {
+            held = new HashSet<>();
+            transactionSynchronizationRegistry.putResource(CalendarWriteLocks.class, held);
+        }
+
+        // Un semaforo, a differenza di un ReentrantLock, può essere rilasciato anche dal thread
+        // che chiude la transazione, ad esempio al timeout
+        Semaphore stripe = stripes[Math.floorMod(Long.hashCode(userId), STRIPES)];
+        if (held.contains(stripe)) {
+            return;
+        }
+
+        stripe.acquireUninterruptibly();
+        try {
+            transactionCallbacks.afterCompletion(stripe::release);
+        } catch (RuntimeException e) {
+            stripe.release();
+            throw e;
+        }
+        held.add(stripe);
+    }
+}
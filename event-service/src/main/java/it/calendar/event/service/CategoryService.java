@@ -1,19 +1,52 @@
 package it.calendar.event.service;
 
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import it.calendar.event.dto.CategoryDto;
 import it.calendar.event.model.Category;
 import it.calendar.event.repository.CategoryRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class CategoryService {
     
+    // Dimensione e scadenza in application.properties (quarkus.cache.caffeine."user-categories")
+    static final String CATEGORIES_CACHE = "user-categories";
+    
+    /**
+     * Copia immutabile di una categoria conservata in cache
+     */
+    record CategorySnapshot(Long id, String name, String color) {
+    }
+    
     @Inject
     CategoryRepository categoryRepository;
     
+    @Inject
+    @CacheName(CATEGORIES_CACHE)
+    Cache categoriesCache;
+    
+    @Inject
+    TransactionCallbacks transactionCallbacks;
+    
+    @Inject
+    CalendarVersions calendarVersions;
+    
+    @Inject
+    ReadRouting readRouting;
+    
     @Transactional
     public Category createCategory(String name, String color, Long userId) {
         // Verifica se la categoria esiste già per questo utente
@@ -25,16 +58,59 @@ public class CategoryService {
         
         Category category = new Category(name, color, userId);
         categoryRepository.persist(category);
+        invalidateAfterCommit(userId);
         
         return category;
     }
     
+    /**
+     * Ottiene le categorie dell'utente dalla cache, caricandole alla prima richiesta
+     * dalla replica se possibile (vedi ReadRouting).
+     * Le categorie restituite sono copie non gestite dal contesto di persistenza.
+     * 
+     * @param userId ID dell'utente
+     * @return Lista di categorie
+     */
     public List<Category> getCategoriesByUserId(Long userId) {
-        return categoryRepository.findByUserId(userId);
+        return toCategories(cachedCategories(userId), userId);
+    }
+    
+    /**
+     * Ottiene le categorie dell'utente solo se sono già in cache, senza caricarle né attendere
+     * un caricamento in corso: non blocca mai, quindi può essere chiamato da un thread di I/O.
+     * 
+     * @param userId ID dell'utente
+     * @return Optional con le categorie, empty se vanno lette dal database
+     */
+    public Optional<List<Category>> getCategoriesByUserIdIfCached(Long userId) {
+        CompletableFuture<Map<Long, CategorySnapshot>> cached = categoriesCache.as(CaffeineCache.class).getIfPresent(userId);
+        if (cached == null || !cached.isDone() || cached.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        
+        return Optional.of(toCategories(cached.join(), userId));
     }
     
     /**
-     * Ottiene una categoria per ID, verificando che appartenga all'utente specificato
+     * Ottiene una categoria dell'utente dalla cache, senza interrogare il database.
+     * La copia restituita non è gestita dal contesto di persistenza: va usata solo per
+     * leggerne i campi o come riferimento in un'associazione, non va modificata.
+     * 
+     * @param categoryId ID della categoria
+     * @param userId ID dell'utente
+     * @return Optional con la categoria se esiste e appartiene all'utente, altrimenti empty
+     */
+    public Optional<Category> getCachedCategory(Long categoryId, Long userId) {
+        if (categoryId == null) {
+            return Optional.empty();
+        }
+        
+        return Optional.ofNullable(cachedCategories(userId).get(categoryId))
+                .map(snapshot -> toCategory(snapshot, userId));
+    }
+    
+    /**
+     * Ottiene una categoria per ID dal database, verificando che appartenga all'utente specificato
      * 
      * @param categoryId ID della categoria
      * @param userId ID dell'utente
@@ -44,6 +120,30 @@ public class CategoryService {
         return categoryRepository.findByIdAndUserId(categoryId, userId);
     }
     
+    /**
+     * Ottiene dalla cache le categorie indicate che appartengono all'utente,
+     * come copie non gestite (vedi getCachedCategory)
+     * 
+     * @param categoryIds ID delle categorie
+     * @param userId ID dell'utente
+     * @return Mappa id -> categoria, senza le categorie inesistenti o di altri utenti
+     */
+    public Map<Long, Category> getCategoriesByIds(Collection<Long> categoryIds, Long userId) {
+        if (categoryIds.isEmpty()) {
+            return Map.of();
+        }
+        
+        Map<Long, CategorySnapshot> cached = cachedCategories(userId);
+        Map<Long, Category> categories = new HashMap<>();
+        for (Long categoryId : categoryIds) {
+            CategorySnapshot snapshot = cached.get(categoryId);
+            if (snapshot != null) {
+                categories.put(categoryId, toCategory(snapshot, userId));
+            }
+        }
+        return categories;
+    }
+    
     @Transactional
     public Optional<Category> updateCategory(Long categoryId, String name, String color, Long userId) {
         Optional<Category> categoryOpt = getCategoryById(categoryId, userId);
@@ -54,6 +154,7 @@ public class CategoryService {
             // Aggiorna i campi
             category.name = name;
             category.color = color;
+            invalidateAfterCommit(userId);
             
             return Optional.of(category);
         }
@@ -63,6 +164,52 @@ public class CategoryService {
     
     @Transactional
     public boolean deleteCategory(Long categoryId, Long userId) {
-        return categoryRepository.deleteByIdAndUserId(categoryId, userId);
+        boolean deleted = categoryRepository.deleteByIdAndUserId(categoryId, userId);
+        
+        if (deleted) {
+            // Anche gli eventi della categoria cambiano rappresentazione
+            invalidateAfterCommit(userId);
+        }
+        
+        return deleted;
+    }
+    
+    private Map<Long, CategorySnapshot> cachedCategories(Long userId) {
+        return categoriesCache.get(userId, this::loadCategories).await().indefinitely();
+    }
+    
+    private Map<Long, CategorySnapshot> loadCategories(Long userId) {
+        Map<Long, CategorySnapshot> categories = new LinkedHashMap<>();
+        List<CategoryDto> rows = readRouting.read(userId, session -> categoryRepository.findDtosByUserId(session, userId));
+        for (CategoryDto category : rows) {
+            categories.put(category.getId(), new CategorySnapshot(category.getId(), category.getName(), category.getColor()));
+        }
+        return Collections.unmodifiableMap(categories);
+    }
+    
+    private static List<Category> toCategories(Map<Long, CategorySnapshot> snapshots, Long userId) {
+        return snapshots.values().stream()
+                .map(snapshot -> toCategory(snapshot, userId))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Una copia con id valorizzato è trattata da Hibernate come entità detached:
+     * assegnata a Event.category ne determina la chiave esterna senza essere caricata
+     */
+    private static Category toCategory(CategorySnapshot snapshot, Long userId) {
+        Category category = new Category(snapshot.name(), snapshot.color(), userId);
+        category.id = snapshot.id();
+        return category;
+    }
+    
+    /**
+     * Invalida la cache dell'utente e ne incrementa la versione dopo il commit:
+     * invalidando prima, una lettura concorrente potrebbe rimettere in cache i dati vecchi.
+     * La versione va registrata dentro la transazione, dopo l'invalidazione.
+     */
+    private void invalidateAfterCommit(Long userId) {
+        transactionCallbacks.afterCommit(() -> categoriesCache.invalidate(userId).await().indefinitely());
+        calendarVersions.bumpAfterCommit(userId);
     }
 }
\ No newline at end of file
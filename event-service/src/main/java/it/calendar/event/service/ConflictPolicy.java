@@ -0,0 +1,34 @@
+package it.calendar.event.service;
+
+import java.util.Locale;
+
+/**
+ * Comportamento in caso di sovrapposizione con altri eventi dell'utente
+ */
+public enum ConflictPolicy {
+    // Nessun controllo, come prima dell'introduzione della policy
+    ALLOW,
+    // L'evento viene salvato e i conflitti vengono segnalati
+    WARN,
+    // L'evento non viene salvato se ci sono conflitti
+    REJECT;
+
+    /**
+     * Interpreta il parametro conflictPolicy della richiesta
+     *
+     * @param value Valore del parametro, null equivale ad ALLOW
+     * @return La policy
+     * @throws IllegalArgumentException se il valore non è valido
+     */
+    public static ConflictPolicy from(String value) {
+        if (value == null || value.isBlank()) {
+            return ALLOW;
+        }
+
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid conflict policy: " + value);
+        }
+    }
+}
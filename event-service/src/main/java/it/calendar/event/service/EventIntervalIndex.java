@@ -0,0 +1,351 @@
+package it.calendar.event.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Indice in memoria degli intervalli temporali degli eventi, uno per utente.
+ *
+ * Per ogni utente mantiene array primitivi (id, inizio, fine in secondi epoch UTC e un flag
+ * per le serie ricorrenti, la cui fine è quella dell'ultima occorrenza) ordinati per inizio,
+ * più il massimo della fine di ogni sotto-albero: l'array ordinato viene letto come un albero
+ * di intervalli bilanciato implicito, per cui una ricerca di sovrapposizione costa O(log n + k).
+ *
+ * Gli snapshot sono immutabili e vengono sostituiti a ogni modifica, quindi le letture
+ * non richiedono lock. Gli indici sono limitati per numero di utenti e scadono se non usati:
+ * la lettura successiva li ricostruisce dal database.
+ */
+@ApplicationScoped
+public class EventIntervalIndex {
+
+    private final ConcurrentMap<Long, UserIntervals> byUser;
+
+    // Versione degli intervalli di ogni utente, incrementata a ogni sua modifica: serve a scartare
+    // i caricamenti concorrenti ormai vecchi senza toccare quelli degli altri utenti.
+    // Scade solo per inattività, mai per dimensione: una voce rimossa durante un caricamento
+    // ripartirebbe da zero e potrebbe far installare uno snapshot vecchio
+    private final ConcurrentMap<Long, Long> versions;
+
+    @Inject
+    public EventIntervalIndex(
+            @ConfigProperty(name = "calendar.interval-index.max-users", defaultValue = "10000") long maxUsers,
+            @ConfigProperty(name = "calendar.interval-index.expire-after-access", defaultValue = "30M") Duration expireAfterAccess) {
+        byUser = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(expireAfterAccess)
+                .<Long, UserIntervals>build()
+                .asMap();
+        versions = Caffeine.newBuilder()
+                .expireAfterAccess(expireAfterAccess)
+                .<Long, Long>build()
+                .asMap();
+    }
+
+    /**
+     * Intervallo di un singolo evento, usato per costruire l'indice di un utente
+     */
+    public record Interval(long id, LocalDateTime start, LocalDateTime end, boolean recurring) {
+
+        public Interval(long id, LocalDateTime start, LocalDateTime end) {
+            this(id, start, end, false);
+        }
+    }
+
+    /**
+     * Risultato di findConflicts: eventi singoli in conflitto certo e serie ricorrenti
+     * da verificare occorrenza per occorrenza
+     */
+    public record Conflicts(long[] eventIds, long[] seriesIds) {
+    }
+
+    /**
+     * Restituisce gli id degli eventi dell'utente che si sovrappongono all'intervallo [start, end].
+     * Se l'utente non è ancora indicizzato, l'indice viene costruito con il loader fornito.
+     *
+     * @param userId ID dell'utente
+     * @param start Inizio della finestra
+     * @param end Fine della finestra
+     * @param loader Caricamento degli intervalli dell'utente dal database
+     * @return Id degli eventi sovrapposti, ordinati per data di inizio
+     */
+    public long[] findOverlapping(Long userId, LocalDateTime start, LocalDateTime end,
+                                  Supplier<List<Interval>> loader) {
+        return intervals(userId, loader).overlapping(toEpoch(start), toEpoch(end));
+    }
+
+    /**
+     * Cerca gli eventi che si sovrappongono a [start, end) con durata non nulla: a differenza
+     * di findOverlapping, il solo contatto agli estremi non conta. Per gli eventi singoli
+     * l'indice basta a decidere; per le serie ricorrenti indica solo che la serie tocca la finestra.
+     *
+     * @param userId ID dell'utente
+     * @param start Inizio della finestra
+     * @param end Fine della finestra (esclusa)
+     * @param loader Caricamento degli intervalli dell'utente dal database
+     * @return Eventi singoli in conflitto e serie candidate, ordinati per data di inizio
+     */
+    public Conflicts findConflicts(Long userId, LocalDateTime start, LocalDateTime end,
+                                   Supplier<List<Interval>> loader) {
+        UserIntervals intervals = intervals(userId, loader);
+
+        // Con i secondi interi, fine > from e inizio < to equivalgono a fine >= from + 1 e inizio <= to - 1
+        int[] positions = intervals.overlappingPositions(toEpoch(start) + 1, toEpoch(end) - 1);
+
+        long[] eventIds = new long[positions.length];
+        long[] seriesIds = new long[positions.length];
+        int events = 0;
+        int series = 0;
+        for (int pos : positions) {
+            if (intervals.recurring[pos]) {
+                seriesIds[series++] = intervals.ids[pos];
+            } else if (intervals.ends[pos] > intervals.starts[pos]) {
+                eventIds[events++] = intervals.ids[pos];
+            }
+        }
+
+        return new Conflicts(Arrays.copyOf(eventIds, events), Arrays.copyOf(seriesIds, series));
+    }
+
+    private UserIntervals intervals(Long userId, Supplier<List<Interval>> loader) {
+        UserIntervals intervals = byUser.get(userId);
+        if (intervals != null) {
+            return intervals;
+        }
+
+        long version = versions.getOrDefault(userId, 0L);
+        UserIntervals loaded = UserIntervals.of(loader.get());
+
+        // Installa lo snapshot solo se nessuna scrittura dell'utente è avvenuta durante il caricamento.
+        // Il controllo avviene dentro compute: una modifica che incrementa la versione dopo il controllo
+        // aspetta l'installazione e aggiorna lo snapshot appena installato
+        UserIntervals installed = byUser.compute(userId, (id, current) ->
+                current != null ? current : versions.getOrDefault(id, 0L) == version ? loaded : null);
+        return installed != null ? installed : loaded;
+    }
+
+    /**
+     * Inserisce o aggiorna l'intervallo di un evento singolo
+     */
+    public void put(Long userId, Long eventId, LocalDateTime start, LocalDateTime end) {
+        put(userId, eventId, start, end, false);
+    }
+
+    /**
+     * Inserisce o aggiorna l'intervallo di un evento; per una serie ricorrente end è la fine dell'ultima occorrenza
+     */
+    public void put(Long userId, Long eventId, LocalDateTime start, LocalDateTime end, boolean recurring) {
+        bump(userId);
+        byUser.computeIfPresent(userId, (id, intervals) ->
+                intervals.without(eventId).with(eventId, toEpoch(start), toEpoch(endOrStart(start, end)), recurring));
+    }
+
+    /**
+     * Rimuove l'intervallo di un evento
+     */
+    public void remove(Long userId, Long eventId) {
+        bump(userId);
+        byUser.computeIfPresent(userId, (id, intervals) -> intervals.without(eventId));
+    }
+
+    /**
+     * Elimina l'indice di un utente, che verrà ricostruito alla prossima lettura
+     */
+    public void invalidate(Long userId) {
+        bump(userId);
+        byUser.remove(userId);
+    }
+
+    // Va chiamato prima di aggiornare lo snapshot, perché un caricamento in corso non lo sostituisca
+    private void bump(Long userId) {
+        versions.merge(userId, 1L, Long::sum);
+    }
+
+    static long toEpoch(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    // Un evento senza fine viene trattato come istantaneo
+    static LocalDateTime endOrStart(LocalDateTime start, LocalDateTime end) {
+        return end != null && end.isAfter(start) ? end : start;
+    }
+
+    /**
+     * Snapshot immutabile degli intervalli di un utente
+     */
+    static final class UserIntervals {
+
+        private static final UserIntervals EMPTY = new UserIntervals(new long[0], new long[0], new long[0], new boolean[0]);
+
+        final long[] ids;
+        final long[] starts;
+        final long[] ends;
+        final boolean[] recurring;
+        // maxEnds[mid] = fine massima nel sotto-albero con radice in mid
+        final long[] maxEnds;
+
+        private UserIntervals(long[] ids, long[] starts, long[] ends, boolean[] recurring) {
+            this.ids = ids;
+            this.starts = starts;
+            this.ends = ends;
+            this.recurring = recurring;
+            this.maxEnds = new long[ids.length];
+            buildMaxEnds(0, ids.length);
+        }
+
+        static UserIntervals of(List<Interval> intervals) {
+            if (intervals.isEmpty()) {
+                return EMPTY;
+            }
+
+            Interval[] sorted = intervals.toArray(new Interval[0]);
+            Arrays.sort(sorted, (a, b) -> {
+                int cmp = a.start().compareTo(b.start());
+                return cmp != 0 ? cmp : Long.compare(a.id(), b.id());
+            });
+
+            int n = sorted.length;
+            long[] ids = new long[n];
+            long[] starts = new long[n];
+            long[] ends = new long[n];
+            boolean[] recurring = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                ids[i] = sorted[i].id();
+                starts[i] = toEpoch(sorted[i].start());
+                ends[i] = toEpoch(endOrStart(sorted[i].start(), sorted[i].end()));
+                recurring[i] = sorted[i].recurring();
+            }
+
+            return new UserIntervals(ids, starts, ends, recurring);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        UserIntervals with(long id, long start, long end, boolean isRecurring) {
+            int n = ids.length;
+            int pos = 0;
+            while (pos < n && (starts[pos] < start || (starts[pos] == start && ids[pos] < id))) {
+                pos++;
+            }
+
+            long[] newIds = new long[n + 1];
+            long[] newStarts = new long[n + 1];
+            long[] newEnds = new long[n + 1];
+            insertAt(ids, newIds, pos, id);
+            insertAt(starts, newStarts, pos, start);
+            insertAt(ends, newEnds, pos, end);
+            boolean[] newRecurring = new boolean[n + 1];
+            System.arraycopy(recurring, 0, newRecurring, 0, pos);
+            newRecurring[pos] = isRecurring;
+            System.arraycopy(recurring, pos, newRecurring, pos + 1, n - pos);
+
+            return new UserIntervals(newIds, newStarts, newEnds, newRecurring);
+        }
+
+        UserIntervals without(long id) {
+            int pos = -1;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    pos = i;
+                    break;
+                }
+            }
+
+            if (pos < 0) {
+                return this;
+            }
+
+            int n = ids.length - 1;
+            long[] newIds = new long[n];
+            long[] newStarts = new long[n];
+            long[] newEnds = new long[n];
+            removeAt(ids, newIds, pos);
+            removeAt(starts, newStarts, pos);
+            removeAt(ends, newEnds, pos);
+            boolean[] newRecurring = new boolean[n];
+            System.arraycopy(recurring, 0, newRecurring, 0, pos);
+            System.arraycopy(recurring, pos + 1, newRecurring, pos, n - pos);
+
+            return new UserIntervals(newIds, newStarts, newEnds, newRecurring);
+        }
+
+        long[] overlapping(long from, long to) {
+            int[] positions = overlappingPositions(from, to);
+            long[] result = new long[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                result[i] = ids[positions[i]];
+            }
+            return result;
+        }
+
+        // Posizioni negli array degli intervalli che si sovrappongono a [from, to], in ordine
+        int[] overlappingPositions(long from, long to) {
+            int[] result = new int[8];
+            int[] count = new int[1];
+            result = collect(0, ids.length, from, to, result, count);
+            return Arrays.copyOf(result, count[0]);
+        }
+
+        private int[] collect(int lo, int hi, long from, long to, int[] result, int[] count) {
+            if (lo >= hi) {
+                return result;
+            }
+
+            int mid = (lo + hi) >>> 1;
+
+            // Nessun intervallo del sotto-albero termina dopo l'inizio della finestra
+            if (maxEnds[mid] < from) {
+                return result;
+            }
+
+            result = collect(lo, mid, from, to, result, count);
+
+            // Gli intervalli a destra iniziano tutti dopo la fine della finestra
+            if (starts[mid] > to) {
+                return result;
+            }
+
+            if (ends[mid] >= from) {
+                if (count[0] == result.length) {
+                    result = Arrays.copyOf(result, result.length * 2);
+                }
+                result[count[0]++] = mid;
+            }
+
+            return collect(mid + 1, hi, from, to, result, count);
+        }
+
+        private long buildMaxEnds(int lo, int hi) {
+            if (lo >= hi) {
+                return Long.MIN_VALUE;
+            }
+
+            int mid = (lo + hi) >>> 1;
+            long max = Math.max(ends[mid], Math.max(buildMaxEnds(lo, mid), buildMaxEnds(mid + 1, hi)));
+            maxEnds[mid] = max;
+            return max;
+        }
+
+        private static void insertAt(long[] source, long[] target, int pos, long value) {
+            System.arraycopy(source, 0, target, 0, pos);
+            target[pos] = value;
+            System.arraycopy(source, pos, target, pos + 1, source.length - pos);
+        }
+
+        private static void removeAt(long[] source, long[] target, int pos) {
+            System.arraycopy(source, 0, target, 0, pos);
+            System.arraycopy(source, pos + 1, target, pos, source.length - pos - 1);
+        }
+    }
+}
@@ -1,33 +1,120 @@
 package it.calendar.event.service;
 
+import it.calendar.event.dto.BusyInterval;
+import it.calendar.event.dto.EventCursor;
+import it.calendar.event.dto.EventDto;
 import it.calendar.event.model.Category;
 import it.calendar.event.model.Event;
 import it.calendar.event.repository.EventRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import java.time.DateTimeException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class EventService {
     
+    // Ogni quanti inserimenti svuotare il contesto di persistenza durante la creazione in blocco,
+    // allineato a quarkus.hibernate-orm.jdbc.statement-batch-size
+    private static final int BATCH_FLUSH_SIZE = 50;
+    
+    // Le eccezioni sono salvate come testo in una colonna da 4000 caratteri: anche con la data
+    // più lunga (35 caratteri più il separatore) 100 eccezioni ci stanno sempre
+    private static final int MAX_RECURRENCE_EXCEPTIONS = 100;
+    
+    // Orizzonte su cui vengono controllate le occorrenze di un nuovo evento ricorrente,
+    // pari alla finestra massima delle ricerche per intervallo
+    private static final Duration CONFLICT_HORIZON = Duration.ofDays(366);
+    
+    /**
+     * Esito della creazione di un singolo evento in una richiesta in blocco:
+     * l'evento creato oppure il motivo del rifiuto
+     */
+    public record BatchItem(Event event, String error) {
+    }
+    
+    /**
+     * Esito di una creazione o modifica con controllo dei conflitti: l'evento salvato e gli
+     * eventi in conflitto. L'evento è null se la scrittura è stata rifiutata per i conflitti
+     * o se l'evento da modificare non esiste.
+     */
+    public record EventWrite(Event event, List<Long> conflicts) {
+    }
+    
     @Inject
     CategoryService categoryService;
     
     @Inject
     EventRepository eventRepository;
     
+    @Inject
+    EventIntervalIndex eventIntervalIndex;
+    
+    @Inject
+    CalendarVersions calendarVersions;
+    
+    @Inject
+    TransactionCallbacks transactionCallbacks;
+    
+    @Inject
+    ReadRouting readRouting;
+    
+    @Inject
+    CalendarWriteLocks calendarWriteLocks;
+    
+    /**
+     * Crea un evento applicando la policy sui conflitti. Controllo e scrittura avvengono nella
+     * stessa transazione, sotto il lock delle scritture dell'utente.
+     * 
+     * @param policy Policy sui conflitti; con REJECT e almeno un conflitto l'evento non viene salvato
+     * @return L'evento creato, o null se rifiutato, e gli eventi in conflitto
+     */
+    @Transactional
+    public EventWrite createEvent(String title, String description,
+                                  LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                  Long userId, Long categoryId,
+                                  String recurrenceRule, List<LocalDateTime> recurrenceExceptions,
+                                  ConflictPolicy policy) {
+        calendarWriteLocks.lock(userId);
+        
+        List<Long> conflicts = findConflicts(policy, userId, startDateTime, endDateTime,
+                recurrenceRule, recurrenceExceptions, null);
+        if (policy == ConflictPolicy.REJECT && !conflicts.isEmpty()) {
+            return new EventWrite(null, conflicts);
+        }
+        
+        return new EventWrite(createEvent(title, description, startDateTime, endDateTime, userId, categoryId,
+                recurrenceRule, recurrenceExceptions), conflicts);
+    }
+    
     @Transactional
     public Event createEvent(String title, String description, 
                            LocalDateTime startDateTime, LocalDateTime endDateTime,
-                           Long userId, Long categoryId) {
+                           Long userId, Long categoryId,
+                           String recurrenceRule, List<LocalDateTime> recurrenceExceptions) {
+        
+        String rule = validateRecurrenceRule(recurrenceRule);
+        validateRecurrenceExceptions(recurrenceExceptions);
+        calendarWriteLocks.lock(userId);
         
         // Verifica che la categoria esista e appartenga all'utente
         Category category = null;
         if (categoryId != null) {
-            Optional<Category> categoryOpt = categoryService.getCategoryById(categoryId, userId);
+            Optional<Category> categoryOpt = categoryService.getCachedCategory(categoryId, userId);
             if (categoryOpt.isPresent()) {
                 category = categoryOpt.get();
             } else {
@@ -36,23 +123,422 @@ public class EventService {
         }
         
         Event event = new Event(title, description, startDateTime, endDateTime, userId, category);
+        setRecurrence(event, rule, recurrenceExceptions);
         eventRepository.persist(event);
         
+        Long eventId = event.id;
+        LocalDateTime seriesEnd = RecurrenceRule.seriesEnd(startDateTime, endDateTime, rule);
+        transactionCallbacks.afterCommit(() -> eventIntervalIndex.put(userId, eventId, startDateTime, seriesEnd, rule != null));
+        calendarVersions.bumpAfterCommit(userId);
+        
         return event;
     }
     
-    public List<Event> getEventsByUserId(Long userId) {
-        return eventRepository.findByUserId(userId);
+    /**
+     * Crea più eventi in un'unica transazione. Le categorie citate vengono risolte una sola
+     * volta e gli inserimenti vengono inviati al database in batch JDBC.
+     * Gli eventi non validi vengono scartati singolarmente senza annullare gli altri.
+     * 
+     * @param eventDtos Eventi da creare
+     * @param userId ID dell'utente
+     * @return Un esito per ogni evento, nello stesso ordine della richiesta
+     */
+    @Transactional
+    public List<BatchItem> createEvents(List<EventDto> eventDtos, Long userId) {
+        Set<Long> categoryIds = eventDtos.stream()
+                .map(EventDto::getCategoryId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Category> categories = categoryService.getCategoriesByIds(categoryIds, userId);
+        calendarWriteLocks.lock(userId);
+        
+        List<BatchItem> results = new ArrayList<>(eventDtos.size());
+        List<Event> created = new ArrayList<>();
+        
+        for (EventDto eventDto : eventDtos) {
+            String error = validate(eventDto, categories);
+            if (error != null) {
+                results.add(new BatchItem(null, error));
+                continue;
+            }
+            
+            Category category = eventDto.getCategoryId() != null ? categories.get(eventDto.getCategoryId()) : null;
+            Event event = new Event(eventDto.getTitle(), eventDto.getDescription(),
+                    eventDto.getStartDateTime(), eventDto.getEndDateTime(), userId, category);
+            setRecurrence(event, validateRecurrenceRule(eventDto.getRecurrenceRule()), eventDto.getRecurrenceExceptions());
+            eventRepository.persist(event);
+            
+            created.add(event);
+            results.add(new BatchItem(event, null));
+            
+            // Evita che il contesto di persistenza cresca con la dimensione della richiesta
+            if (created.size() % BATCH_FLUSH_SIZE == 0) {
+                eventRepository.flush();
+                eventRepository.getEntityManager().clear();
+            }
+        }
+        
+        transactionCallbacks.afterCommit(() -> created.forEach(event ->
+                eventIntervalIndex.put(userId, event.id, event.startDateTime,
+                        RecurrenceRule.seriesEnd(event.startDateTime, event.endDateTime, event.recurrenceRule),
+                        event.recurrenceRule != null)));
+        if (!created.isEmpty()) {
+            calendarVersions.bumpAfterCommit(userId);
+        }
+        
+        return results;
+    }
+    
+    private String validate(EventDto eventDto, Map<Long, Category> categories) {
+        if (eventDto == null) {
+            return "Event cannot be null";
+        }
+        if (eventDto.getTitle() == null || eventDto.getTitle().isBlank()) {
+            return "Event title cannot be blank";
+        }
+        if (eventDto.getStartDateTime() == null) {
+            return "Start date/time cannot be null";
+        }
+        if (eventDto.getCategoryId() != null && !categories.containsKey(eventDto.getCategoryId())) {
+            return "Invalid category";
+        }
+        try {
+            validateRecurrenceRule(eventDto.getRecurrenceRule());
+            validateRecurrenceExceptions(eventDto.getRecurrenceExceptions());
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+    
+    /**
+     * Ottiene tutti gli eventi dell'utente, dalla replica se possibile (vedi ReadRouting)
+     * 
+     * @param userId ID dell'utente
+     * @return Lista di DTO degli eventi
+     */
+    public List<EventDto> getEventsByUserId(Long userId) {
+        return readRouting.read(userId, session -> eventRepository.findDtosByUserId(session, userId));
+    }
+    
+    /**
+     * Scorre tutti gli eventi dell'utente senza caricarli in memoria tutti insieme.
+     * La transazione tiene aperto il cursore JDBC per tutta la durata dello scorrimento.
+     * 
+     * @param userId ID dell'utente
+     * @param consumer Destinatario di ogni evento, in ordine di data di inizio
+     */
+    @Transactional
+    public void streamEventsByUserId(Long userId, Consumer<EventDto> consumer) {
+        eventRepository.scrollDtosByUserId(userId, consumer);
+    }
+    
+    /**
+     * Ottiene una pagina degli eventi dell'utente, ordinati per data di inizio
+     * 
+     * @param userId ID dell'utente
+     * @param after Cursore dell'ultimo evento della pagina precedente, null per la prima pagina
+     * @param limit Numero massimo di eventi
+     * @return Lista di DTO degli eventi
+     */
+    public List<EventDto> getEventsPageByUserId(Long userId, EventCursor after, int limit) {
+        return eventRepository.findDtoPageByUserId(userId, after, limit);
+    }
+    
+    /**
+     * Ottiene gli eventi dell'utente che si sovrappongono all'intervallo indicato.
+     * La ricerca per intervallo avviene sull'indice in memoria: il database viene
+     * interrogato solo per chiave primaria sugli eventi trovati.
+     * Le serie ricorrenti vengono espanse nelle sole occorrenze che cadono nell'intervallo.
+     * L'indice si carica sempre dal primario, perché resta in memoria e viene poi aggiornato
+     * solo dalle scritture; i dettagli degli eventi si leggono dalla replica se possibile.
+     */
+    public List<EventDto> getEventsByUserIdAndDateRange(Long userId, LocalDateTime start, LocalDateTime end) {
+        long[] eventIds = eventIntervalIndex.findOverlapping(userId, start, end,
+                () -> loadIntervals(userId));
+        
+        List<Long> ids = Arrays.stream(eventIds).boxed().collect(Collectors.toList());
+        List<EventDto> events = readRouting.read(userId, session -> eventRepository.findDtosByIds(session, ids));
+        
+        return expandOccurrences(events, start, end);
+    }
+    
+    /**
+     * Trova gli eventi dell'utente che si sovrappongono a quello indicato.
+     * La ricerca avviene sull'indice degli intervalli, che basta a decidere per gli eventi
+     * singoli: il database viene interrogato solo se la finestra tocca una serie ricorrente,
+     * per verificarne le occorrenze.
+     * Per un evento ricorrente vengono controllate tutte le occorrenze che iniziano entro
+     * CONFLICT_HORIZON dalla prima; quelle successive non vengono controllate.
+     * Il risultato è affidabile solo sotto il lock delle scritture dell'utente (CalendarWriteLocks).
+     * 
+     * @param userId ID dell'utente
+     * @param startDateTime Inizio dell'evento
+     * @param endDateTime Fine dell'evento, può essere null
+     * @param recurrenceRule Regola di ricorrenza dell'evento, null per un evento singolo
+     * @param recurrenceExceptions Occorrenze escluse dalla serie, può essere null
+     * @param excludedEventId Evento da ignorare (quello in modifica), può essere null
+     * @return ID degli eventi in conflitto, in ordine crescente
+     * @throws IllegalArgumentException se la regola non è valida
+     */
+    public List<Long> findConflictingEventIds(Long userId, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                              String recurrenceRule, List<LocalDateTime> recurrenceExceptions,
+                                              Long excludedEventId) {
+        // Un evento senza durata non occupa tempo e non può essere in conflitto
+        if (startDateTime == null || endDateTime == null || !endDateTime.isAfter(startDateTime)) {
+            return new ArrayList<>();
+        }
+        
+        String rule = validateRecurrenceRule(recurrenceRule);
+        if (rule != null) {
+            return findSeriesConflicts(userId, startDateTime, Duration.between(startDateTime, endDateTime),
+                    rule, recurrenceExceptions, excludedEventId);
+        }
+        
+        EventIntervalIndex.Conflicts candidates = eventIntervalIndex.findConflicts(userId, startDateTime, endDateTime,
+                () -> loadIntervals(userId));
+        
+        List<Long> conflicts = Arrays.stream(candidates.eventIds()).boxed().collect(Collectors.toList());
+        List<Long> seriesIds = Arrays.stream(candidates.seriesIds()).boxed().collect(Collectors.toList());
+        if (!seriesIds.isEmpty()) {
+            // Il contatto agli estremi non è un conflitto
+            expandOccurrences(eventRepository.findTimingsByIds(seriesIds), startDateTime, endDateTime).stream()
+                    .filter(occurrence -> occurrence.getEndDateTime() != null
+                            && occurrence.getStartDateTime().isBefore(endDateTime)
+                            && occurrence.getEndDateTime().isAfter(startDateTime))
+                    .map(EventDto::getId)
+                    .distinct()
+                    .forEach(conflicts::add);
+        }
+        
+        conflicts.remove(excludedEventId);
+        conflicts.sort(null);
+        return conflicts;
+    }
+    
+    /**
+     * Conflitti di una serie ricorrente: le occorrenze della serie entro l'orizzonte e quelle degli
+     * eventi esistenti nella stessa finestra vengono confrontate con un'unica scansione
+     */
+    private List<Long> findSeriesConflicts(Long userId, LocalDateTime startDateTime, Duration duration,
+                                           String rule, List<LocalDateTime> recurrenceExceptions,
+                                           Long excludedEventId) {
+        LocalDateTime horizon = plusOrMax(startDateTime, CONFLICT_HORIZON);
+        Set<LocalDateTime> exceptions = recurrenceExceptions != null
+                ? new HashSet<>(recurrenceExceptions)
+                : Set.of();
+        
+        List<LocalDateTime> starts = new ArrayList<>();
+        Iterator<LocalDateTime> occurrences = RecurrenceRule.parse(rule).occurrences(startDateTime, startDateTime);
+        while (occurrences.hasNext()) {
+            LocalDateTime occurrenceStart = occurrences.next();
+            if (occurrenceStart.isAfter(horizon)) {
+                break;
+            }
+            if (!exceptions.contains(occurrenceStart)) {
+                starts.add(occurrenceStart);
+            }
+        }
+        if (starts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        LocalDateTime windowStart = starts.get(0);
+        LocalDateTime windowEnd = plusOrMax(starts.get(starts.size() - 1), duration);
+        EventIntervalIndex.Conflicts candidates = eventIntervalIndex.findConflicts(userId, windowStart, windowEnd,
+                () -> loadIntervals(userId));
+        List<Long> ids = new ArrayList<>();
+        Arrays.stream(candidates.eventIds()).forEach(ids::add);
+        Arrays.stream(candidates.seriesIds()).forEach(ids::add);
+        
+        // Le occorrenze della serie hanno tutte la stessa durata, quindi sono ordinate anche per fine:
+        // per ogni evento esistente, in ordine di inizio, basta la prima occorrenza che non è già finita
+        Set<Long> conflicts = new HashSet<>();
+        int next = 0;
+        for (EventDto existing : expandOccurrences(eventRepository.findTimingsByIds(ids), windowStart, windowEnd)) {
+            LocalDateTime existingEnd = existing.getEndDateTime();
+            if (existingEnd == null || !existingEnd.isAfter(existing.getStartDateTime())) {
+                continue;
+            }
+            
+            while (next < starts.size() && !plusOrMax(starts.get(next), duration).isAfter(existing.getStartDateTime())) {
+                next++;
+            }
+            if (next == starts.size()) {
+                break;
+            }
+            if (starts.get(next).isBefore(existingEnd)) {
+                conflicts.add(existing.getId());
+            }
+        }
+        
+        conflicts.remove(excludedEventId);
+        List<Long> sorted = new ArrayList<>(conflicts);
+        sorted.sort(null);
+        return sorted;
+    }
+    
+    /**
+     * Cerca i conflitti solo se la policy lo richiede: con ALLOW la scrittura resta invariata
+     */
+    private List<Long> findConflicts(ConflictPolicy policy, Long userId,
+                                     LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                     String recurrenceRule, List<LocalDateTime> recurrenceExceptions,
+                                     Long eventId) {
+        if (policy == ConflictPolicy.ALLOW) {
+            return List.of();
+        }
+        
+        return findConflictingEventIds(userId, startDateTime, endDateTime, recurrenceRule, recurrenceExceptions, eventId);
+    }
+    
+    // Somma che si ferma all'ultima data rappresentabile
+    private static LocalDateTime plusOrMax(LocalDateTime dateTime, Duration amount) {
+        try {
+            return dateTime.plus(amount);
+        } catch (DateTimeException e) {
+            return LocalDateTime.MAX;
+        }
+    }
+    
+    /**
+     * Calcola i blocchi occupati dell'utente nell'intervallo [start, end].
+     * Gli eventi (occorrenze comprese) vengono letti già ordinati per inizio e fusi con
+     * un'unica scansione: ogni evento estende il blocco corrente se lo tocca, altrimenti
+     * ne apre uno nuovo. I blocchi sono limitati all'intervallo richiesto; gli eventi
+     * senza durata non occupano tempo.
+     */
+    public List<BusyInterval> getBusyIntervals(Long userId, LocalDateTime start, LocalDateTime end) {
+        long[] eventIds = eventIntervalIndex.findOverlapping(userId, start, end,
+                () -> loadIntervals(userId));
+        
+        List<EventDto> events = expandOccurrences(
+                eventRepository.findTimingsByIds(Arrays.stream(eventIds).boxed().collect(Collectors.toList())),
+                start, end);
+        
+        List<BusyInterval> busy = new ArrayList<>();
+        LocalDateTime blockStart = null;
+        LocalDateTime blockEnd = null;
+        for (EventDto event : events) {
+            if (event.getEndDateTime() == null) {
+                continue;
+            }
+            
+            LocalDateTime eventStart = event.getStartDateTime().isBefore(start) ? start : event.getStartDateTime();
+            LocalDateTime eventEnd = event.getEndDateTime().isAfter(end) ? end : event.getEndDateTime();
+            if (!eventEnd.isAfter(eventStart)) {
+                continue;
+            }
+            
+            if (blockEnd != null && !eventStart.isAfter(blockEnd)) {
+                if (eventEnd.isAfter(blockEnd)) {
+                    blockEnd = eventEnd;
+                }
+            } else {
+                if (blockEnd != null) {
+                    busy.add(new BusyInterval(blockStart, blockEnd));
+                }
+                blockStart = eventStart;
+                blockEnd = eventEnd;
+            }
+        }
+        if (blockEnd != null) {
+            busy.add(new BusyInterval(blockStart, blockEnd));
+        }
+        
+        return busy;
+    }
+    
+    /**
+     * Sostituisce ogni serie ricorrente con le sue occorrenze nell'intervallo [start, end].
+     * Le occorrenze mantengono l'id dell'evento master, a cui vanno riferite le modifiche.
+     */
+    private List<EventDto> expandOccurrences(List<EventDto> events, LocalDateTime start, LocalDateTime end) {
+        if (events.stream().noneMatch(event -> event.getRecurrenceRule() != null)) {
+            return events;
+        }
+        
+        List<EventDto> expanded = new ArrayList<>(events.size());
+        for (EventDto event : events) {
+            if (event.getRecurrenceRule() == null) {
+                expanded.add(event);
+                continue;
+            }
+            
+            LocalDateTime firstEnd = event.getEndDateTime();
+            Duration duration = firstEnd != null && firstEnd.isAfter(event.getStartDateTime())
+                    ? Duration.between(event.getStartDateTime(), firstEnd)
+                    : Duration.ZERO;
+            Set<LocalDateTime> exceptions = event.getRecurrenceExceptions() != null
+                    ? new HashSet<>(event.getRecurrenceExceptions())
+                    : Set.of();
+            
+            // Un'occorrenza si sovrappone alla finestra se inizia entro end e termina dopo start
+            Iterator<LocalDateTime> occurrences = RecurrenceRule.parse(event.getRecurrenceRule())
+                    .occurrences(event.getStartDateTime(), start.minus(duration));
+            while (occurrences.hasNext()) {
+                LocalDateTime occurrenceStart = occurrences.next();
+                if (occurrenceStart.isAfter(end)) {
+                    break;
+                }
+                if (!exceptions.contains(occurrenceStart)) {
+                    expanded.add(occurrenceOf(event, occurrenceStart, duration));
+                }
+            }
+        }
+        
+        expanded.sort(Comparator.comparing(EventDto::getStartDateTime).thenComparing(EventDto::getId));
+        return expanded;
+    }
+    
+    private EventDto occurrenceOf(EventDto master, LocalDateTime start, Duration duration) {
+        return new EventDto(master.getId(), master.getTitle(), master.getDescription(),
+                start, master.getEndDateTime() != null ? start.plus(duration) : null,
+                master.getCategoryId(), master.getCategoryName(), master.getCategoryColor(),
+                master.getRecurrenceRule(), master.getRecurrenceExceptions());
     }
     
-    public List<Event> getEventsByUserIdAndDateRange(Long userId, LocalDateTime start, LocalDateTime end) {
-        return eventRepository.findByUserIdAndDateRange(userId, start, end);
+    /**
+     * Modifica un evento applicando la policy sui conflitti, con controllo e scrittura nella
+     * stessa transazione come in creazione
+     * 
+     * @param policy Policy sui conflitti; con REJECT e almeno un conflitto l'evento non viene modificato
+     * @return L'evento modificato, o null se rifiutato o inesistente, e gli eventi in conflitto
+     *         (sempre vuoti se l'evento non esiste o è di un altro utente)
+     */
+    @Transactional
+    public EventWrite updateEvent(Long eventId, String title, String description,
+                                  LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                  Long userId, Long categoryId,
+                                  String recurrenceRule, List<LocalDateTime> recurrenceExceptions,
+                                  ConflictPolicy policy) {
+        calendarWriteLocks.lock(userId);
+        
+        // Prima la verifica di appartenenza: un id inesistente o di un altro utente dà 404,
+        // non un 409 che riveli gli eventi in conflitto
+        if (eventRepository.findByIdAndUserId(eventId, userId).isEmpty()) {
+            return new EventWrite(null, List.of());
+        }
+        
+        List<Long> conflicts = findConflicts(policy, userId, startDateTime, endDateTime,
+                recurrenceRule, recurrenceExceptions, eventId);
+        if (policy == ConflictPolicy.REJECT && !conflicts.isEmpty()) {
+            return new EventWrite(null, conflicts);
+        }
+        
+        return new EventWrite(updateEvent(eventId, title, description, startDateTime, endDateTime, userId, categoryId,
+                recurrenceRule, recurrenceExceptions).orElse(null), conflicts);
     }
     
     @Transactional
     public Optional<Event> updateEvent(Long eventId, String title, String description,
                                      LocalDateTime startDateTime, LocalDateTime endDateTime,
-                                     Long userId, Long categoryId) {
+                                     Long userId, Long categoryId,
+                                     String recurrenceRule, List<LocalDateTime> recurrenceExceptions) {
+        
+        String rule = validateRecurrenceRule(recurrenceRule);
+        validateRecurrenceExceptions(recurrenceExceptions);
+        calendarWriteLocks.lock(userId);
         
         Optional<Event> eventOpt = eventRepository.findByIdAndUserId(eventId, userId);
         
@@ -64,10 +550,11 @@ public class EventService {
             event.description = description;
             event.startDateTime = startDateTime;
             event.endDateTime = endDateTime;
+            setRecurrence(event, rule, recurrenceExceptions);
             
             // Aggiorna la categoria se specificata
             if (categoryId != null) {
-                Optional<Category> categoryOpt = categoryService.getCategoryById(categoryId, userId);
+                Optional<Category> categoryOpt = categoryService.getCachedCategory(categoryId, userId);
                 if (categoryOpt.isPresent()) {
                     event.category = categoryOpt.get();
                 } else {
@@ -77,6 +564,10 @@ public class EventService {
                 event.category = null;
             }
             
+            LocalDateTime seriesEnd = RecurrenceRule.seriesEnd(startDateTime, endDateTime, rule);
+            transactionCallbacks.afterCommit(() -> eventIntervalIndex.put(userId, eventId, startDateTime, seriesEnd, rule != null));
+            calendarVersions.bumpAfterCommit(userId);
+            
             return Optional.of(event);
         }
         
@@ -85,6 +576,49 @@ public class EventService {
     
     @Transactional
     public boolean deleteEvent(Long eventId, Long userId) {
-        return eventRepository.deleteByIdAndUserId(eventId, userId);
+        boolean deleted = eventRepository.deleteByIdAndUserId(eventId, userId);
+        
+        if (deleted) {
+            transactionCallbacks.afterCommit(() -> eventIntervalIndex.remove(userId, eventId));
+            calendarVersions.bumpAfterCommit(userId);
+        }
+        
+        return deleted;
+    }
+    
+    /**
+     * Verifica la regola di ricorrenza; una regola vuota indica un evento singolo
+     * 
+     * @return La regola, o null per un evento singolo
+     * @throws IllegalArgumentException se la regola non è valida
+     */
+    private String validateRecurrenceRule(String recurrenceRule) {
+        if (recurrenceRule == null || recurrenceRule.isBlank()) {
+            return null;
+        }
+        
+        RecurrenceRule.parse(recurrenceRule);
+        return recurrenceRule.trim();
     }
+    
+    private void validateRecurrenceExceptions(List<LocalDateTime> exceptions) {
+        if (exceptions != null && exceptions.size() > MAX_RECURRENCE_EXCEPTIONS) {
+            throw new IllegalArgumentException("At most " + MAX_RECURRENCE_EXCEPTIONS + " recurrence exceptions are allowed");
+        }
+    }
+    
+    // Intervalli dell'utente per l'indice: per le serie ricorrenti la fine è quella dell'ultima occorrenza
+    private List<EventIntervalIndex.Interval> loadIntervals(Long userId) {
+        return eventRepository.findIntervalsByUserId(userId).stream()
+                .map(interval -> new EventIntervalIndex.Interval(interval.id(), interval.start(),
+                        RecurrenceRule.seriesEnd(interval.start(), interval.end(), interval.recurrenceRule()),
+                        interval.recurrenceRule() != null))
+                .collect(Collectors.toList());
+    }
+    
+    private void setRecurrence(Event event, String rule, List<LocalDateTime> exceptions) {
+        event.recurrenceRule = rule;
+        event.recurrenceExceptions = rule != null && exceptions != null ? new ArrayList<>(exceptions) : new ArrayList<>();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package it.calendar.event.service;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.QueryProducer;
+import org.jboss.logging.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Instrada le letture fuori da una transazione verso la replica in sola lettura del database
+ * (datasource "replica"), lasciando al primario le scritture e tutto ciò che gira in transazione.
+ *
+ * Dopo una modifica le letture dello stesso utente restano sul primario per
+ * calendar.read-replica.read-your-writes, così chi ha appena scritto non interroga una replica
+ * che quasi certamente è ancora indietro. La finestra è tracciata in memoria da CalendarVersions,
+ * quindi copre le scritture passate da questa istanza.
+ *
+ * Trascorsa la finestra, la replica serve la lettura solo se la sua riga in calendar_versions ha
+ * raggiunto la versione nota all'istanza: il tag calcolato prima della lettura descrive così i
+ * dati letti anche quando la replica è in ritardo di più della finestra. Altrimenti si legge
+ * dal primario.
+ *
+ * Sulla replica le query girano in una sessione stateless della stessa SessionFactory: nessun
+ * contesto di persistenza e nessuna cache di secondo livello, che restano del solo primario.
+ */
+@ApplicationScoped
+public class ReadRouting {
+
+    private static final Logger LOG = Logger.getLogger(ReadRouting.class);
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    Session session;
+
+    @Inject
+    @DataSource("replica")
+    AgroalDataSource replica;
+
+    @Inject
+    CalendarVersions calendarVersions;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @ConfigProperty(name = "calendar.read-replica.read-your-writes", defaultValue = "5S")
+    Duration readYourWrites;
+
+    /**
+     * Esegue una lettura per conto dell'utente sulla replica, o sul primario se c'è una
+     * transazione attiva, l'utente ha scritto di recente o la replica non ha ancora ricevuto
+     * le sue ultime modifiche. Se la replica non è raggiungibile la lettura ripiega sul primario.
+     *
+     * @param userId ID dell'utente che legge
+     * @param query Query da eseguire sulla sessione scelta
+     * @return Risultato della query
+     */
+    public <T> T read(Long userId, Function<QueryProducer, T> query) {
+        if (!useReplica(userId)) {
+            return query.apply(session);
+        }
+
+        // Controllata prima della query: la replica applica le transazioni in ordine di commit
+        long version = calendarVersions.version(userId);
+        try (Connection connection = replica.getConnection()) {
+            if (calendarVersions.storedVersion(connection, userId) >= version) {
+                try (StatelessSession replicaSession = sessionFactory.openStatelessSession(connection)) {
+                    return query.apply(replicaSession);
+                }
+            }
+            LOG.debugf("Read replica behind version %d for user %d, reading from the primary", version, userId);
+        } catch (SQLException e) {
+            LOG.warn("Read replica unavailable, reading from the primary", e);
+        }
+        return query.apply(session);
+    }
+
+    private boolean useReplica(Long userId) {
+        return transactionSynchronizationRegistry.getTransactionStatus() == Status.STATUS_NO_TRANSACTION
+                && !calendarVersions.changedWithin(userId, readYourWrites);
+    }
+}
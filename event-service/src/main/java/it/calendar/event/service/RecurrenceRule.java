@@ -0,0 +1,308 @@
+package it.calendar.event.service;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Regola di ricorrenza di un evento, sottoinsieme di RRULE (RFC 5545):
+ * FREQ (DAILY, WEEKLY, MONTHLY, YEARLY), INTERVAL, COUNT, UNTIL e BYDAY (solo con WEEKLY).
+ *
+ * Le occorrenze vengono generate da un iteratore, una alla volta e in ordine, senza
+ * materializzare la serie: una regola senza fine costa solo quanto la finestra richiesta.
+ */
+public final class RecurrenceRule {
+
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY, YEARLY
+    }
+
+    private static final int MAX_COUNT = 10_000;
+
+    private static final int MAX_INTERVAL = 1_000;
+
+    private static final DateTimeFormatter UNTIL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private static final DateTimeFormatter UNTIL_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final List<String> DAY_CODES = List.of("MO", "TU", "WE", "TH", "FR", "SA", "SU");
+
+    private final Frequency frequency;
+    private final int interval;
+    private final Integer count;
+    private final LocalDateTime until;
+    // Giorni della settimana in ordine da lunedì a domenica, vuoto se BYDAY non è specificato
+    private final DayOfWeek[] byDay;
+
+    private RecurrenceRule(Frequency frequency, int interval, Integer count, LocalDateTime until, DayOfWeek[] byDay) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.until = until;
+        this.byDay = byDay;
+    }
+
+    /**
+     * Interpreta una regola nel formato RRULE, ad esempio {@code FREQ=WEEKLY;BYDAY=MO,WE;COUNT=10}
+     *
+     * @param rule La regola, con o senza il prefisso "RRULE:"
+     * @return La regola interpretata
+     * @throws IllegalArgumentException se la regola non è valida o non è supportata
+     */
+    public static RecurrenceRule parse(String rule) {
+        if (rule == null || rule.isBlank()) {
+            throw new IllegalArgumentException("Recurrence rule cannot be blank");
+        }
+
+        String value = rule.trim().toUpperCase(Locale.ROOT);
+        if (value.startsWith("RRULE:")) {
+            value = value.substring("RRULE:".length());
+        }
+
+        Frequency frequency = null;
+        int interval = 1;
+        Integer count = null;
+        LocalDateTime until = null;
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+
+        for (String part : value.split(";")) {
+            int separator = part.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid recurrence rule part: " + part);
+            }
+
+            String key = part.substring(0, separator);
+            String partValue = part.substring(separator + 1);
+
+            try {
+                switch (key) {
+                    case "FREQ" -> frequency = Frequency.valueOf(partValue);
+                    case "INTERVAL" -> interval = Integer.parseInt(partValue);
+                    case "COUNT" -> count = Integer.parseInt(partValue);
+                    case "UNTIL" -> until = parseUntil(partValue);
+                    case "BYDAY" -> {
+                        for (String day : partValue.split(",")) {
+                            int index = DAY_CODES.indexOf(day);
+                            if (index < 0) {
+                                throw new IllegalArgumentException("Unsupported BYDAY value: " + day);
+                            }
+                            days.add(DayOfWeek.of(index + 1));
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unsupported recurrence rule part: " + key);
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid recurrence rule part: " + part, e);
+            }
+        }
+
+        if (frequency == null) {
+            throw new IllegalArgumentException("Recurrence rule must specify FREQ");
+        }
+        if (interval < 1 || interval > MAX_INTERVAL) {
+            throw new IllegalArgumentException("INTERVAL must be between 1 and " + MAX_INTERVAL);
+        }
+        if (count != null && (count < 1 || count > MAX_COUNT)) {
+            throw new IllegalArgumentException("COUNT must be between 1 and " + MAX_COUNT);
+        }
+        if (count != null && until != null) {
+            throw new IllegalArgumentException("COUNT and UNTIL cannot be used together");
+        }
+        if (!days.isEmpty() && frequency != Frequency.WEEKLY) {
+            throw new IllegalArgumentException("BYDAY is only supported with FREQ=WEEKLY");
+        }
+
+        return new RecurrenceRule(frequency, interval, count, until, days.toArray(new DayOfWeek[0]));
+    }
+
+    private static LocalDateTime parseUntil(String value) {
+        String until = value.endsWith("Z") ? value.substring(0, value.length() - 1) : value;
+        if (until.length() == 8) {
+            // Una data senza ora include l'intera giornata
+            return LocalDate.parse(until, UNTIL_DATE).atTime(23, 59, 59);
+        }
+        return LocalDateTime.parse(until, UNTIL_DATE_TIME);
+    }
+
+    /**
+     * Fine dell'ultima occorrenza di un evento, ricorrente o meno
+     *
+     * @param start Inizio dell'evento (della prima occorrenza)
+     * @param end Fine dell'evento (della prima occorrenza), può essere null
+     * @param rule Regola di ricorrenza, null per gli eventi singoli
+     * @return La fine dell'ultima occorrenza, o LocalDateTime.MAX se la serie non ha fine
+     */
+    public static LocalDateTime seriesEnd(LocalDateTime start, LocalDateTime end, String rule) {
+        LocalDateTime firstEnd = end != null && end.isAfter(start) ? end : start;
+        if (rule == null) {
+            return firstEnd;
+        }
+
+        LocalDateTime lastStart = parse(rule).lastStart(start);
+        if (lastStart == null) {
+            return LocalDateTime.MAX;
+        }
+        try {
+            return lastStart.plus(Duration.between(start, firstEnd));
+        } catch (DateTimeException e) {
+            return LocalDateTime.MAX;
+        }
+    }
+
+    /**
+     * Inizio dell'ultima occorrenza della serie
+     *
+     * @param dtstart Inizio della prima occorrenza
+     * @return L'inizio dell'ultima occorrenza, o null se la serie non ha fine
+     */
+    public LocalDateTime lastStart(LocalDateTime dtstart) {
+        if (until != null) {
+            return until.isBefore(dtstart) ? dtstart : until;
+        }
+        if (count == null) {
+            return null;
+        }
+
+        LocalDateTime last = dtstart;
+        Iterator<LocalDateTime> occurrences = occurrences(dtstart, dtstart);
+        while (occurrences.hasNext()) {
+            last = occurrences.next();
+        }
+        return last;
+    }
+
+    /**
+     * Occorrenze della serie che iniziano a partire da notBefore, in ordine cronologico.
+     * Per le regole senza COUNT l'iteratore salta direttamente al periodo di notBefore,
+     * quindi il costo non dipende da quanto la finestra è lontana dall'inizio della serie.
+     *
+     * @param dtstart Inizio della prima occorrenza
+     * @param notBefore Prima data di inizio di interesse
+     * @return Iteratore, potenzialmente infinito, sulle date di inizio delle occorrenze
+     */
+    public Iterator<LocalDateTime> occurrences(LocalDateTime dtstart, LocalDateTime notBefore) {
+        return new OccurrenceIterator(dtstart, notBefore);
+    }
+
+    private final class OccurrenceIterator implements Iterator<LocalDateTime> {
+
+        private final LocalDateTime dtstart;
+        private final LocalDateTime notBefore;
+        // Lunedì della settimana di dtstart, base dei periodi per WEEKLY con BYDAY
+        private final LocalDateTime weekStart;
+
+        private long period;
+        private int dayIndex;
+        private int emitted;
+        private boolean exhausted;
+        private LocalDateTime next;
+
+        OccurrenceIterator(LocalDateTime dtstart, LocalDateTime notBefore) {
+            this.dtstart = dtstart;
+            this.notBefore = notBefore;
+            this.weekStart = dtstart.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            // Con COUNT bisogna contare le occorrenze fin dall'inizio della serie
+            this.period = count == null ? firstUsefulPeriod() : 0;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public LocalDateTime next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            LocalDateTime current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            next = null;
+
+            while (!exhausted) {
+                LocalDateTime candidate;
+                try {
+                    candidate = candidate();
+                } catch (DateTimeException e) {
+                    // Oltre l'ultima data rappresentabile la serie finisce
+                    exhausted = true;
+                    return;
+                }
+                step();
+
+                // Date inesistenti (es. 31 febbraio) e giorni precedenti a dtstart nella prima settimana
+                if (candidate == null || candidate.isBefore(dtstart)) {
+                    continue;
+                }
+                if ((until != null && candidate.isAfter(until)) || (count != null && emitted >= count)) {
+                    exhausted = true;
+                    return;
+                }
+
+                emitted++;
+                if (!candidate.isBefore(notBefore)) {
+                    next = candidate;
+                    return;
+                }
+            }
+        }
+
+        private LocalDateTime candidate() {
+            long units = period * interval;
+            return switch (frequency) {
+                case DAILY -> dtstart.plusDays(units);
+                case WEEKLY -> byDay.length == 0
+                        ? dtstart.plusWeeks(units)
+                        : weekStart.plusWeeks(units).plusDays(byDay[dayIndex].getValue() - 1L);
+                case MONTHLY -> sameDayOfMonth(dtstart.plusMonths(units));
+                case YEARLY -> sameDayOfMonth(dtstart.plusYears(units));
+            };
+        }
+
+        // plusMonths/plusYears spostano al giorno valido precedente: secondo RFC 5545 la data va saltata
+        private LocalDateTime sameDayOfMonth(LocalDateTime candidate) {
+            return candidate.getDayOfMonth() == dtstart.getDayOfMonth() ? candidate : null;
+        }
+
+        private void step() {
+            if (frequency == Frequency.WEEKLY && byDay.length > 0 && ++dayIndex < byDay.length) {
+                return;
+            }
+            dayIndex = 0;
+            period++;
+        }
+
+        private long firstUsefulPeriod() {
+            if (!notBefore.isAfter(dtstart)) {
+                return 0;
+            }
+
+            long units = switch (frequency) {
+                case DAILY -> ChronoUnit.DAYS.between(dtstart, notBefore);
+                case WEEKLY -> ChronoUnit.WEEKS.between(weekStart, notBefore);
+                case MONTHLY -> ChronoUnit.MONTHS.between(dtstart, notBefore);
+                case YEARLY -> ChronoUnit.YEARS.between(dtstart, notBefore);
+            };
+
+            // Un periodo di margine: le occorrenze precedenti a notBefore vengono comunque scartate
+            return Math.max(0, units / interval - 1);
+        }
+    }
+}
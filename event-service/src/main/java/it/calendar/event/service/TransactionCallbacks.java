@@ -0,0 +1,92 @@
+package it.calendar.event.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Azioni da eseguire sullo stato in memoria (indici, cache, versioni) solo quando le
+ * modifiche al database sono definitive.
+ *
+ * Le azioni di una transazione vengono eseguite da un'unica sincronizzazione, nell'ordine
+ * di registrazione: prima quelle di afterCommit, poi quelle di afterCompletion.
+ */
+@ApplicationScoped
+public class TransactionCallbacks {
+
+    private static final Logger LOG = Logger.getLogger(TransactionCallbacks.class);
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    /**
+     * Esegue un'azione solo dopo il commit della transazione corrente, così lo stato in memoria
+     * non vede mai modifiche annullate da un rollback. Senza una transazione attiva l'azione
+     * viene eseguita subito.
+     *
+     * @param action Azione da eseguire
+     */
+    public void afterCommit(Runnable action) {
+        if (transactionSynchronizationRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            action.run();
+            return;
+        }
+
+        callbacks().afterCommit.add(action);
+    }
+
+    /**
+     * Esegue un'azione al termine della transazione corrente, qualunque sia l'esito,
+     * dopo tutte le azioni registrate con afterCommit
+     *
+     * @param action Azione da eseguire
+     * @throws IllegalStateException se non c'è una transazione attiva
+     */
+    public void afterCompletion(Runnable action) {
+        callbacks().afterCompletion.add(action);
+    }
+
+    private Callbacks callbacks() {
+        Callbacks callbacks = (Callbacks) transactionSynchronizationRegistry.getResource(Callbacks.class);
+        if (callbacks == null) {
+            callbacks = new Callbacks();
+            transactionSynchronizationRegistry.registerInterposedSynchronization(callbacks);
+            transactionSynchronizationRegistry.putResource(Callbacks.class, callbacks);
+        }
+        return callbacks;
+    }
+
+    private static final class Callbacks implements Synchronization {
+
+        private final List<Runnable> afterCommit = new ArrayList<>();
+
+        private final List<Runnable> afterCompletion = new ArrayList<>();
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == Status.STATUS_COMMITTED) {
+                afterCommit.forEach(Callbacks::run);
+            }
+            afterCompletion.forEach(Callbacks::run);
+        }
+
+        // Un'azione che fallisce non deve impedire le successive
+        private static void run(Runnable action) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOG.error("Transaction callback failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+-- Schema iniziale, equivalente a quello generato finora da Hibernate con database.generation=update.
+-- Sui database esistenti questa migrazione viene saltata grazie a baseline-on-migrate.
+
+create sequence categories_SEQ start with 1 increment by 50;
+create sequence events_SEQ start with 1 increment by 50;
+create sequence MyEntity_SEQ start with 1 increment by 50;
+
+create table categories (
+    id bigint not null,
+    color varchar(255),
+    name varchar(255) not null,
+    userId bigint,
+    primary key (id),
+    constraint categories_name_key unique (name)
+);
+
+create table events (
+    id bigint not null,
+    description varchar(255),
+    endDateTime timestamp(6),
+    startDateTime timestamp(6) not null,
+    title varchar(255) not null,
+    userId bigint not null,
+    category_id bigint,
+    primary key (id),
+    constraint events_category_fk foreign key (category_id) references categories (id)
+);
+
+create table MyEntity (
+    id bigint not null,
+    field varchar(255),
+    primary key (id)
+);
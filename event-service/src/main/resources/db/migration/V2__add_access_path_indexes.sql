@@ -0,0 +1,7 @@
+-- Indici per i percorsi di accesso di EventRepository e CategoryRepository.
+
+-- Liste e intervalli di date per utente; id completa l'ordinamento della paginazione keyset
+create index events_user_start_idx on events (userId, startDateTime, id);
+
+-- findByUserId e findByNameAndUserId
+create index categories_user_name_idx on categories (userId, name);
@@ -0,0 +1,4 @@
+-- Regola di ricorrenza (sottoinsieme di RRULE) ed eccezioni della serie (EXDATE) sull'evento master.
+
+alter table events add column recurrenceRule varchar(255);
+alter table events add column recurrenceExceptions varchar(4000);
@@ -0,0 +1,8 @@
+-- Versione del calendario di ogni utente, incrementata nella stessa transazione di ogni modifica.
+-- Letta sulla replica da ReadRouting per sapere se ha già ricevuto le ultime modifiche dell'utente.
+
+create table calendar_versions (
+    userId bigint not null,
+    version bigint not null,
+    primary key (userId)
+);
@@ -0,0 +1,59 @@
+package it.calendar.event;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import it.calendar.event.model.Category;
+import it.calendar.event.service.CategoryService;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+
+@QuarkusTest
+class EventBatchResourceTest {
+
+    private static final Long USER_ID = 4343L;
+
+    @Inject
+    CategoryService categoryService;
+
+    @Test
+    void testBatchReturnsPerItemResults() {
+        Category category = QuarkusTransaction.requiringNew().call(() ->
+                categoryService.createCategory("Batch-" + USER_ID, "#0000ff", USER_ID));
+
+        String body = "["
+                + "{\"title\": \"Sync 1\", \"startDateTime\": \"2025-06-01T10:00:00\", \"categoryId\": " + category.id + "},"
+                + "{\"title\": \"\", \"startDateTime\": \"2025-06-02T10:00:00\"},"
+                + "{\"title\": \"Sync 3\", \"startDateTime\": \"2025-06-03T10:00:00\", \"categoryId\": 999999},"
+                + "{\"title\": \"Sync 4\", \"startDateTime\": \"2025-06-04T10:00:00\", \"endDateTime\": \"2025-06-04T11:00:00\"}"
+                + "]";
+
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .contentType(ContentType.JSON)
+          .body(body)
+          .when().post("/events/batch")
+          .then()
+             .statusCode(200)
+             .body("size()", is(4))
+             .body("[0].status", is(201))
+             .body("[0].event.id", notNullValue())
+             .body("[0].event.categoryName", is("Batch-" + USER_ID))
+             .body("[1].status", is(400))
+             .body("[1].event", nullValue())
+             .body("[2].error", is("Invalid category"))
+             .body("[3].status", is(201));
+
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .when().get("/events?start=2025-06-01T00:00:00&end=2025-06-30T00:00:00")
+          .then()
+             .statusCode(200)
+             .body("size()", is(2));
+    }
+}
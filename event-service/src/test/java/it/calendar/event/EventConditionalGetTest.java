@@ -0,0 +1,68 @@
+package it.calendar.event;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+class EventConditionalGetTest {
+
+    private static final Long USER_ID = 4646L;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Test
+    void testNotModifiedUntilCalendarChanges() {
+        String etag = given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .when().get("/events")
+          .then()
+             .statusCode(200)
+             .extract().header("ETag");
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .header("If-None-Match", etag)
+          .when().get("/events")
+          .then()
+             .statusCode(304)
+             .header("ETag", is(etag));
+
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .header("If-None-Match", etag)
+          .when().get("/categories")
+          .then()
+             .statusCode(304);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .contentType(ContentType.JSON)
+          .body("{\"name\": \"Versioned-" + USER_ID + "\", \"color\": \"#123456\"}")
+          .when().post("/categories")
+          .then()
+             .statusCode(201);
+
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .header("If-None-Match", etag)
+          .when().get("/events")
+          .then()
+             .statusCode(200)
+             .header("ETag", not(etag));
+    }
+}
@@ -0,0 +1,151 @@
+package it.calendar.event;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+class EventConflictResourceTest {
+
+    private static final Long USER_ID = 4545L;
+
+    private static final Long SERIES_USER_ID = 4546L;
+
+    private static final Long CONCURRENT_USER_ID = 4547L;
+
+    private static final Long OWNER_ID = 4548L;
+
+    private static final Long STRANGER_ID = 4549L;
+
+    @Test
+    void testConflictPolicies() {
+        int meetingId = create("{\"title\": \"Meeting\", \"startDateTime\": \"2025-08-01T10:00:00\", \"endDateTime\": \"2025-08-01T11:00:00\"}", "")
+                .statusCode(201)
+                .extract().path("id");
+        int standupId = create("{\"title\": \"Standup\", \"startDateTime\": \"2025-07-28T09:00:00\", \"endDateTime\": \"2025-07-28T10:30:00\", "
+                + "\"recurrenceRule\": \"FREQ=DAILY\"}", "")
+                .statusCode(201)
+                .extract().path("id");
+
+        String overlapping = "{\"title\": \"Call\", \"startDateTime\": \"2025-08-01T10:15:00\", \"endDateTime\": \"2025-08-01T10:45:00\"}";
+        create(overlapping, "?conflictPolicy=reject")
+                .statusCode(409)
+                .body("conflictingEventIds.size()", is(2))
+                .body("conflictingEventIds[0]", is(meetingId))
+                .body("conflictingEventIds[1]", is(standupId));
+
+        create(overlapping, "?conflictPolicy=warn")
+                .statusCode(201)
+                .header("X-Event-Conflicts", is(meetingId + "," + standupId));
+
+        // Un evento che inizia quando un altro finisce non è in conflitto
+        create("{\"title\": \"Lunch\", \"startDateTime\": \"2025-08-01T11:00:00\", \"endDateTime\": \"2025-08-01T12:00:00\"}", "?conflictPolicy=reject")
+                .statusCode(201)
+                .header("X-Event-Conflicts", nullValue());
+
+        create(overlapping, "?conflictPolicy=maybe")
+                .statusCode(400);
+    }
+
+    @Test
+    void testRecurringEventIsCheckedBeyondFirstOccurrence() {
+        int reviewId = create(SERIES_USER_ID, "{\"title\": \"Review\", \"startDateTime\": \"2025-09-10T15:00:00\", \"endDateTime\": \"2025-09-10T16:00:00\"}", "")
+                .statusCode(201)
+                .extract().path("id");
+        int trainingId = create(SERIES_USER_ID, "{\"title\": \"Training\", \"startDateTime\": \"2025-09-01T15:30:00\", \"endDateTime\": \"2025-09-01T16:30:00\", "
+                + "\"recurrenceRule\": \"FREQ=DAILY;COUNT=5\"}", "?conflictPolicy=reject")
+                .statusCode(201)
+                .header("X-Event-Conflicts", nullValue())
+                .extract().path("id");
+
+        // La prima occorrenza (27 agosto) è libera, la seconda tocca Training e la terza Review
+        String weekly = "{\"title\": \"Focus\", \"startDateTime\": \"2025-08-27T15:30:00\", \"endDateTime\": \"2025-08-27T16:30:00\", "
+                + "\"recurrenceRule\": \"FREQ=WEEKLY\"";
+        create(SERIES_USER_ID, weekly + "}", "?conflictPolicy=reject")
+                .statusCode(409)
+                .body("conflictingEventIds.size()", is(2))
+                .body("conflictingEventIds[0]", is(reviewId))
+                .body("conflictingEventIds[1]", is(trainingId));
+
+        create(SERIES_USER_ID, weekly + ", \"recurrenceExceptions\": [\"2025-09-03T15:30:00\", \"2025-09-10T15:30:00\"]}", "?conflictPolicy=reject")
+                .statusCode(201)
+                .header("X-Event-Conflicts", nullValue());
+    }
+
+    @Test
+    void testUpdateOfForeignOrMissingEventIsNotFound() {
+        int foreignId = create(OWNER_ID, "{\"title\": \"Private\", \"startDateTime\": \"2025-11-03T12:00:00\", \"endDateTime\": \"2025-11-03T13:00:00\"}", "")
+                .statusCode(201)
+                .extract().path("id");
+        create(STRANGER_ID, "{\"title\": \"Busy\", \"startDateTime\": \"2025-11-03T10:00:00\", \"endDateTime\": \"2025-11-03T11:00:00\"}", "")
+                .statusCode(201);
+
+        // L'orario richiesto è in conflitto con un evento di chi scrive, ma l'id non è suo
+        String overlapping = "{\"title\": \"Call\", \"startDateTime\": \"2025-11-03T10:15:00\", \"endDateTime\": \"2025-11-03T10:45:00\"}";
+        for (long id : new long[] {foreignId, Integer.MAX_VALUE}) {
+            given()
+              .auth().oauth2(TestTokens.forUser(STRANGER_ID))
+              .contentType(ContentType.JSON)
+              .body(overlapping)
+              .when().put("/events/" + id + "?conflictPolicy=reject")
+              .then()
+                 .statusCode(404);
+        }
+    }
+
+    @Test
+    void testConcurrentRejectWritesSaveOneEvent() throws Exception {
+        String slot = "{\"title\": \"Slot\", \"startDateTime\": \"2025-10-01T10:00:00\", \"endDateTime\": \"2025-10-01T11:00:00\"}";
+        int writers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                statuses.add(executor.submit(() -> {
+                    start.await();
+                    return create(CONCURRENT_USER_ID, slot, "?conflictPolicy=reject").extract().statusCode();
+                }));
+            }
+            start.countDown();
+
+            int created = 0;
+            for (Future<Integer> status : statuses) {
+                if (status.get() == 201) {
+                    created++;
+                } else {
+                    assertEquals(409, status.get());
+                }
+            }
+            assertEquals(1, created);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ValidatableResponse create(String body, String query) {
+        return create(USER_ID, body, query);
+    }
+
+    private ValidatableResponse create(Long userId, String body, String query) {
+        return given()
+          .auth().oauth2(TestTokens.forUser(userId))
+          .contentType(ContentType.JSON)
+          .body(body)
+          .when().post("/events" + query)
+          .then();
+    }
+}
@@ -0,0 +1,101 @@
+package it.calendar.event;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import it.calendar.event.service.EventService;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+
+@QuarkusTest
+class EventFreeBusyResourceTest {
+
+    private static final Long USER_ID = 4444L;
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 7, 1, 0, 0);
+
+    @Inject
+    EventService eventService;
+
+    @Test
+    void testOverlappingEventsAndOccurrencesAreMerged() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            eventService.createEvent("A", null, DAY.withHour(9), DAY.withHour(10), USER_ID, null, null, null);
+            eventService.createEvent("B", null, DAY.withHour(9).withMinute(30), DAY.withHour(11), USER_ID, null, null, null);
+            eventService.createEvent("C", null, DAY.withHour(11), DAY.withHour(12), USER_ID, null, null, null);
+            eventService.createEvent("Reminder", null, DAY.withHour(15), null, USER_ID, null, null, null);
+            // Ogni giorno alle 14, tranne il 2 luglio
+            eventService.createEvent("Daily", null, DAY.minusDays(10).withHour(14), DAY.minusDays(10).withHour(15),
+                    USER_ID, null, "FREQ=DAILY", List.of(DAY.plusDays(1).withHour(14)));
+        });
+
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .when().get("/events/freebusy?start=2025-07-01T00:00:00&end=2025-07-03T14:30:00")
+          .then()
+             .statusCode(200)
+             .body("size()", is(3))
+             .body("[0][0]", is("2025-07-01T09:00:00"))
+             .body("[0][1]", is("2025-07-01T12:00:00"))
+             .body("[1][0]", is("2025-07-01T14:00:00"))
+             .body("[2][1]", is("2025-07-03T14:30:00"));
+
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .when().get("/events/freebusy?start=2025-07-01T00:00:00")
+          .then()
+             .statusCode(400);
+    }
+
+    @Test
+    void testInvertedRangeIsRejected() {
+        for (String path : List.of("/events/freebusy", "/events")) {
+            given()
+              .auth().oauth2(TestTokens.forUser(USER_ID))
+              .when().get(path + "?start=2025-07-02T00:00:00&end=2025-07-01T00:00:00")
+              .then()
+                 .statusCode(400)
+                 .body(is("End date must be after start date"));
+        }
+    }
+
+    @Test
+    void testUnboundedExpansionIsRejected() {
+        for (String path : List.of("/events/freebusy", "/events")) {
+            given()
+              .auth().oauth2(TestTokens.forUser(USER_ID))
+              .when().get(path + "?start=2025-01-01T00:00:00&end=2026-01-02T00:00:01")
+              .then()
+                 .statusCode(400);
+        }
+
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .when().get("/events?start=tomorrow&end=2026-01-01T00:00:00")
+          .then()
+             .statusCode(400);
+
+        String exceptions = IntStream.range(0, 101)
+                .mapToObj(i -> "\"" + DAY.plusDays(i).withHour(14) + ":00\"")
+                .collect(Collectors.joining(","));
+        for (String recurrence : List.of("\"recurrenceRule\": \"FREQ=YEARLY;INTERVAL=1000000000\"",
+                "\"recurrenceRule\": \"FREQ=DAILY\", \"recurrenceExceptions\": [" + exceptions + "]")) {
+            given()
+              .auth().oauth2(TestTokens.forUser(USER_ID))
+              .contentType(ContentType.JSON)
+              .body("{\"title\": \"Daily\", \"startDateTime\": \"2025-07-01T14:00:00\", \"endDateTime\": \"2025-07-01T15:00:00\", "
+                      + recurrence + "}")
+              .when().post("/events")
+              .then()
+                 .statusCode(400);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package it.calendar.event;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.response.ExtractableResponse;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import it.calendar.event.repository.EventRepository;
+import it.calendar.event.service.EventService;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@QuarkusTest
+class EventPaginationResourceTest {
+
+    private static final Long USER_ID = 5353L;
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 6, 1, 9, 0);
+
+    // Tre eventi alla stessa ora, poi due coppie con inizio uguale: le pagine da due spezzano i pareggi
+    private static final int[] START_DAYS = {0, 0, 0, 1, 1, 2, 2};
+
+    @Inject
+    EventService eventService;
+
+    @Inject
+    EventRepository eventRepository;
+
+    @BeforeEach
+    void createEvents() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            if (eventRepository.count("userId", USER_ID) > 0) {
+                return;
+            }
+
+            for (int i = 0; i < START_DAYS.length; i++) {
+                LocalDateTime start = BASE.plusDays(START_DAYS[i]);
+                eventService.createEvent("Event " + i, null, start, start.plusHours(1), USER_ID, null, null, null);
+            }
+        });
+    }
+
+    @Test
+    void testPagesFollowCursorAcrossEqualStartTimes() {
+        List<Long> expected = new ArrayList<>();
+        List<LocalDateTime> expectedStarts = new ArrayList<>();
+        eventService.getEventsByUserId(USER_ID).forEach(event -> {
+            expected.add(event.getId());
+            expectedStarts.add(event.getStartDateTime());
+        });
+
+        List<Long> ids = new ArrayList<>();
+        List<LocalDateTime> starts = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            RequestSpecification request = given()
+                    .auth().oauth2(TestTokens.forUser(USER_ID))
+                    .queryParam("limit", 2);
+            if (cursor != null) {
+                request.queryParam("after", cursor);
+            }
+            ExtractableResponse<Response> page = request
+                    .when().get("/events")
+                    .then()
+                       .statusCode(200)
+                       .extract();
+            ids.addAll(page.jsonPath().getList("id", Long.class));
+            page.jsonPath().getList("startDateTime", String.class).forEach(start -> starts.add(LocalDateTime.parse(start)));
+            cursor = page.header("X-Next-Cursor");
+            pages++;
+        } while (cursor != null);
+
+        // Ogni evento compare una sola volta, nell'ordine (inizio, id) della lista completa
+        assertEquals(4, pages);
+        assertEquals(expected, ids);
+        assertEquals(expectedStarts, starts);
+    }
+
+    @Test
+    void testLastPageHasNoCursor() {
+        ExtractableResponse<Response> page = given()
+                .auth().oauth2(TestTokens.forUser(USER_ID))
+                .queryParam("limit", START_DAYS.length)
+                .when().get("/events")
+                .then()
+                   .statusCode(200)
+                   .extract();
+
+        assertEquals(START_DAYS.length, page.jsonPath().getList("id").size());
+        assertNull(page.header("X-Next-Cursor"));
+    }
+
+    @Test
+    void testMalformedCursorIsRejected() {
+        String notBase64 = "not a cursor!";
+        String noSeparator = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("2025-06-01T09:00".getBytes(StandardCharsets.UTF_8));
+        String badDate = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("yesterday|12".getBytes(StandardCharsets.UTF_8));
+
+        for (String after : List.of(notBase64, noSeparator, badDate)) {
+            given()
+              .auth().oauth2(TestTokens.forUser(USER_ID))
+              .queryParam("after", after)
+              .when().get("/events")
+              .then()
+                 .statusCode(400);
+        }
+    }
+
+    @Test
+    void testLimitBounds() {
+        for (int limit : new int[] {0, -1, 501}) {
+            given()
+              .auth().oauth2(TestTokens.forUser(USER_ID))
+              .queryParam("limit", limit)
+              .when().get("/events")
+              .then()
+                 .statusCode(400);
+        }
+
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .queryParam("limit", 500)
+          .when().get("/events")
+          .then()
+             .statusCode(200);
+    }
+}
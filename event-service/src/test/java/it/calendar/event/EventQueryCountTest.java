@@ -0,0 +1,123 @@
+package it.calendar.event;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import it.calendar.event.model.Category;
+import it.calendar.event.repository.EventRepository;
+import it.calendar.event.service.CategoryService;
+import it.calendar.event.service.EventService;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+class EventQueryCountTest {
+
+    private static final Long USER_ID = 4242L;
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 5, 1, 9, 0);
+
+    @Inject
+    EventService eventService;
+
+    @Inject
+    CategoryService categoryService;
+
+    @Inject
+    EventRepository eventRepository;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @BeforeEach
+    void createEvents() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            if (eventRepository.count("userId", USER_ID) > 0) {
+                return;
+            }
+
+            Category work = categoryService.createCategory("Work-" + USER_ID, "#ff0000", USER_ID);
+            Category home = categoryService.createCategory("Home-" + USER_ID, "#00ff00", USER_ID);
+            for (int i = 0; i < 12; i++) {
+                Long categoryId = i % 3 == 0 ? null : (i % 3 == 1 ? work.id : home.id);
+                eventService.createEvent("Event " + i, null, BASE.plusDays(i), BASE.plusDays(i).plusHours(1),
+                        USER_ID, categoryId, null, null);
+            }
+        });
+    }
+
+    @Test
+    void testListUsesSingleStatement() {
+        Statistics statistics = resetStatistics();
+
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .when().get("/events")
+          .then()
+             .statusCode(200)
+             .body("size()", is(12))
+             .body("[1].categoryName", is("Work-" + USER_ID));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testPageUsesSingleStatement() {
+        Statistics statistics = resetStatistics();
+
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .when().get("/events?limit=5")
+          .then()
+             .statusCode(200)
+             .body("size()", is(5));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testStreamUsesSingleStatement() {
+        Statistics statistics = resetStatistics();
+
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .when().get("/events?stream=true")
+          .then()
+             .statusCode(200)
+             .body("size()", is(12))
+             .body("[2].categoryName", is("Home-" + USER_ID));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testDateRangeUsesSingleStatementOnceIndexed() {
+        String range = "/events?start=2025-05-02T00:00:00&end=2025-05-05T00:00:00";
+        given().auth().oauth2(TestTokens.forUser(USER_ID)).when().get(range).then().statusCode(200);
+
+        Statistics statistics = resetStatistics();
+
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .when().get(range)
+          .then()
+             .statusCode(200)
+             .body("size()", is(3));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private Statistics resetStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,130 @@
+package it.calendar.event;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Misura la latenza della query per intervallo di date di EventRepository su un dataset
+ * generato, senza e con l'indice events_user_start_idx introdotto dalla migrazione V2.
+ *
+ * Non viene eseguito con i test normali (il nome non segue le convenzioni di surefire):
+ *
+ * {@code ./mvnw test -Dtest=EventRangeQueryBenchmark}
+ *
+ * Per misurare su PostgreSQL basta sovrascrivere il datasource del profilo test.
+ */
+@QuarkusTest
+class EventRangeQueryBenchmark {
+
+    private static final Logger LOG = Logger.getLogger(EventRangeQueryBenchmark.class);
+
+    private static final long FIRST_ID = 10_000_000L;
+    private static final long FIRST_USER_ID = 900_000L;
+    private static final int USERS = 50;
+    private static final int EVENTS_PER_USER = 4_000;
+    private static final int QUERIES = 500;
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static final String RANGE_QUERY = "select id, title, startDateTime, endDateTime from events "
+            + "where userId = ? and startDateTime <= ? and coalesce(endDateTime, startDateTime) >= ? "
+            + "order by startDateTime, id";
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @BeforeEach
+    void seed() throws SQLException {
+        Random random = new Random(7);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement(
+                     "insert into events (id, title, startDateTime, endDateTime, userId) values (?, ?, ?, ?, ?)")) {
+            long id = FIRST_ID;
+            for (int user = 0; user < USERS; user++) {
+                for (int i = 0; i < EVENTS_PER_USER; i++) {
+                    LocalDateTime start = BASE.plusMinutes(random.nextInt(60 * 24 * 730));
+                    insert.setLong(1, id++);
+                    insert.setString(2, "Event " + i);
+                    insert.setTimestamp(3, Timestamp.valueOf(start));
+                    insert.setTimestamp(4, Timestamp.valueOf(start.plusMinutes(30 + random.nextInt(180))));
+                    insert.setLong(5, FIRST_USER_ID + user);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    @AfterEach
+    void cleanUp() throws SQLException {
+        execute("delete from events where id >= " + FIRST_ID);
+    }
+
+    @Test
+    void benchmarkRangeQuery() throws SQLException {
+        execute("drop index events_user_start_idx");
+        double[] withoutIndex = measure();
+
+        execute("create index events_user_start_idx on events (userId, startDateTime, id)");
+        double[] withIndex = measure();
+
+        LOG.infof("Range query on %d events, %d queries (month windows)", USERS * EVENTS_PER_USER, QUERIES);
+        LOG.infof("  without index: p50 %.3f ms, p99 %.3f ms", withoutIndex[0], withoutIndex[1]);
+        LOG.infof("  with index:    p50 %.3f ms, p99 %.3f ms", withIndex[0], withIndex[1]);
+    }
+
+    /**
+     * Esegue la query su finestre mensili casuali e restituisce p50 e p99 in millisecondi
+     */
+    private double[] measure() throws SQLException {
+        Random random = new Random(11);
+        long[] nanos = new long[QUERIES];
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement query = connection.prepareStatement(RANGE_QUERY)) {
+            for (int q = -QUERIES / 10; q < QUERIES; q++) {
+                LocalDateTime from = BASE.plusDays(random.nextInt(700));
+                query.setLong(1, FIRST_USER_ID + random.nextInt(USERS));
+                query.setTimestamp(2, Timestamp.valueOf(from.plusMonths(1)));
+                query.setTimestamp(3, Timestamp.valueOf(from));
+
+                long started = System.nanoTime();
+                try (ResultSet rows = query.executeQuery()) {
+                    while (rows.next()) {
+                        rows.getLong(1);
+                    }
+                }
+
+                // Le prime esecuzioni servono solo a scaldare JIT e cache
+                if (q >= 0) {
+                    nanos[q] = System.nanoTime() - started;
+                }
+            }
+        }
+
+        Arrays.sort(nanos);
+        return new double[] {nanos[QUERIES / 2] / 1e6, nanos[QUERIES * 99 / 100] / 1e6};
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -4,17 +4,15 @@ import io.quarkus.test.junit.QuarkusTest;
 import org.junit.jupiter.api.Test;
 
 import static io.restassured.RestAssured.given;
-import static org.hamcrest.CoreMatchers.is;
 
 @QuarkusTest
 class EventResourceTest {
     @Test
-    void testHelloEndpoint() {
+    void testEventsRequireAuthentication() {
         given()
           .when().get("/events")
           .then()
-             .statusCode(200)
-             .body(is("Hello from Quarkus REST"));
+             .statusCode(401);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+package it.calendar.event;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import it.calendar.event.service.ConflictPolicy;
+import it.calendar.event.service.EventService;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Misura la latenza di creazione di un evento con conflictPolicy=allow (nessun controllo)
+ * e con il controllo dei conflitti attivo, per un utente con molti eventi.
+ *
+ * Non viene eseguito con i test normali (il nome non segue le convenzioni di surefire):
+ *
+ * {@code ./mvnw test -Dtest=EventWriteBenchmark}
+ */
+@QuarkusTest
+class EventWriteBenchmark {
+
+    private static final Logger LOG = Logger.getLogger(EventWriteBenchmark.class);
+
+    private static final long FIRST_ID = 20_000_000L;
+    private static final Long USER_ID = 950_000L;
+    // Circa tre eventi al giorno su due anni
+    private static final int EVENTS = 2_000;
+    private static final int WRITES = 1_000;
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Inject
+    EventService eventService;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @BeforeEach
+    void seed() throws SQLException {
+        Random random = new Random(7);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement(
+                     "insert into events (id, title, startDateTime, endDateTime, userId) values (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < EVENTS; i++) {
+                LocalDateTime start = BASE.plusMinutes(random.nextInt(60 * 24 * 730));
+                insert.setLong(1, FIRST_ID + i);
+                insert.setString(2, "Event " + i);
+                insert.setTimestamp(3, Timestamp.valueOf(start));
+                insert.setTimestamp(4, Timestamp.valueOf(start.plusMinutes(30 + random.nextInt(180))));
+                insert.setLong(5, USER_ID);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    @AfterEach
+    void cleanUp() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("delete from events where userId = " + USER_ID);
+        }
+    }
+
+    @Test
+    void benchmarkCreateWithConflictCheck() {
+        // Semi diversi: ogni fase scrive in orari non già occupati dalla fase precedente
+        double[] allow = measure(ConflictPolicy.ALLOW, 11);
+        double[] warn = measure(ConflictPolicy.WARN, 13);
+
+        LOG.infof("Create on a user with %d events, %d writes", EVENTS, WRITES);
+        LOG.infof("  allow: p50 %.3f ms, p99 %.3f ms", allow[0], allow[1]);
+        LOG.infof("  warn:  p50 %.3f ms, p99 %.3f ms", warn[0], warn[1]);
+    }
+
+    /**
+     * Crea eventi in orari casuali, ciascuno nella propria transazione come fa EventResource,
+     * e restituisce p50 e p99 in millisecondi
+     */
+    private double[] measure(ConflictPolicy policy, long seed) {
+        Random random = new Random(seed);
+        long[] nanos = new long[WRITES];
+
+        for (int w = -WRITES / 10; w < WRITES; w++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(60 * 24 * 730));
+            LocalDateTime end = start.plusHours(1);
+
+            long started = System.nanoTime();
+            QuarkusTransaction.requiringNew().run(() ->
+                    eventService.createEvent("Write", null, start, end, USER_ID, null, null, null, policy));
+
+            // Le prime esecuzioni servono solo a scaldare JIT e cache
+            if (w >= 0) {
+                nanos[w] = System.nanoTime() - started;
+            }
+        }
+
+        Arrays.sort(nanos);
+        return new double[] {nanos[WRITES / 2] / 1e6, nanos[WRITES * 99 / 100] / 1e6};
+    }
+}
@@ -0,0 +1,77 @@
+package it.calendar.event;
+
+import io.quarkus.test.junit.QuarkusTest;
+import it.calendar.common.security.InternalIdentity;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+
+@QuarkusTest
+class InternalIdentityTest {
+
+    private static final Long USER_ID = 5050L;
+
+    @Test
+    void testGatewayIdentityReplacesJwt() {
+        long inOneMinute = System.currentTimeMillis() / 1000 + 60;
+        String identity = TestTokens.internalIdentity(USER_ID, inOneMinute);
+
+        given()
+          .header(InternalIdentity.HEADER, identity)
+          .contentType("application/json")
+          .body("{\"name\":\"Internal-" + USER_ID + "\",\"color\":\"#123456\"}")
+          .when().post("/categories")
+          .then()
+             .statusCode(201);
+
+        given()
+          .header(InternalIdentity.HEADER, identity)
+          .when().get("/categories")
+          .then()
+             .statusCode(200)
+             .body("size()", is(1))
+             .body("[0].name", is("Internal-" + USER_ID));
+
+        // Lo stesso utente con il JWT vede gli stessi dati
+        given()
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .when().get("/categories")
+          .then()
+             .statusCode(200)
+             .body("size()", is(1));
+    }
+
+    @Test
+    void testForgedOrExpiredIdentityIsRejected() {
+        long inOneMinute = System.currentTimeMillis() / 1000 + 60;
+        String forged = TestTokens.internalIdentity(USER_ID, inOneMinute).replaceFirst("^" + USER_ID, "1");
+        String expired = TestTokens.internalIdentity(USER_ID, inOneMinute - 120);
+
+        given()
+          .header(InternalIdentity.HEADER, forged)
+          .when().get("/categories")
+          .then()
+             .statusCode(401);
+
+        given()
+          .header(InternalIdentity.HEADER, expired)
+          .when().get("/categories")
+          .then()
+             .statusCode(401);
+    }
+
+    @Test
+    void testInvalidIdentityFallsBackToJwt() {
+        long inOneMinute = System.currentTimeMillis() / 1000 + 60;
+        String forged = TestTokens.internalIdentity(USER_ID, inOneMinute).replaceFirst("^" + USER_ID, "1");
+
+        // Con un bearer valido l'header non valido viene ignorato e vale il JWT
+        given()
+          .header(InternalIdentity.HEADER, forged)
+          .auth().oauth2(TestTokens.forUser(USER_ID))
+          .when().get("/categories")
+          .then()
+             .statusCode(200);
+    }
+}
@@ -0,0 +1,70 @@
+package it.calendar.event;
+
+import io.quarkus.test.junit.QuarkusTest;
+import it.calendar.common.security.CachingJWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.DefaultJWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.JWTAuthContextInfo;
+import io.smallrye.jwt.auth.principal.JWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.ParseException;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Tempo CPU per richiesta della verifica dei token, con la factory di smallrye-jwt e con
+ * la cache dei token verificati, su un carico in cui ogni client riusa il proprio token.
+ *
+ * Non viene eseguito con i test normali (il nome non segue le convenzioni di surefire):
+ *
+ * {@code ./mvnw test -Dtest=JwtVerificationBenchmark}
+ */
+@QuarkusTest
+class JwtVerificationBenchmark {
+
+    private static final Logger LOG = Logger.getLogger(JwtVerificationBenchmark.class);
+
+    private static final int CLIENTS = 200;
+    private static final int REQUESTS = 50_000;
+
+    @Inject
+    JWTAuthContextInfo authContextInfo;
+
+    @Inject
+    CachingJWTCallerPrincipalFactory cachingFactory;
+
+    @Test
+    void benchmarkVerification() throws ParseException {
+        String[] tokens = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            tokens[i] = TestTokens.forUser(980_000L + i);
+        }
+
+        double uncached = measure(new DefaultJWTCallerPrincipalFactory(), tokens);
+        double cached = measure(cachingFactory, tokens);
+
+        LOG.infof("%d verifications, %d distinct tokens", REQUESTS, CLIENTS);
+        LOG.infof("  smallrye-jwt factory: %.1f us CPU/request", uncached);
+        LOG.infof("  verified-token cache: %.1f us CPU/request", cached);
+    }
+
+    /**
+     * Restituisce il tempo CPU medio per verifica in microsecondi
+     */
+    private double measure(JWTCallerPrincipalFactory factory, String[] tokens) throws ParseException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        // Le prime verifiche servono solo a scaldare JIT e cache
+        for (int r = 0; r < REQUESTS / 10; r++) {
+            factory.parse(tokens[r % tokens.length], authContextInfo);
+        }
+
+        long started = threads.getCurrentThreadCpuTime();
+        for (int r = 0; r < REQUESTS; r++) {
+            factory.parse(tokens[r % tokens.length], authContextInfo);
+        }
+        return (threads.getCurrentThreadCpuTime() - started) / 1e3 / REQUESTS;
+    }
+}
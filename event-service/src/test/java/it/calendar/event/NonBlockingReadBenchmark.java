@@ -0,0 +1,159 @@
+package it.calendar.event;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Throughput e latenza delle rivalidazioni (GET /events con If-None-Match) e delle categorie
+ * già in cache, con il pool dei worker libero e con tutti i worker occupati da letture lente,
+ * simulate da task che restano in attesa sul pool per tutta la misura.
+ *
+ * Non viene eseguito con i test normali (il nome non segue le convenzioni di surefire):
+ *
+ * {@code ./mvnw test -Dtest=NonBlockingReadBenchmark}
+ */
+@QuarkusTest
+@TestProfile(NonBlockingReadBenchmark.SmallWorkerPool.class)
+class NonBlockingReadBenchmark {
+
+    private static final Logger LOG = Logger.getLogger(NonBlockingReadBenchmark.class);
+
+    private static final long USER_ID = 6060L;
+    private static final int WORKERS = 16;
+    private static final int CLIENTS = 32;
+    private static final long DURATION_MILLIS = 2_000;
+
+    public static class SmallWorkerPool implements QuarkusTestProfile {
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("quarkus.thread-pool.max-threads", String.valueOf(WORKERS));
+        }
+    }
+
+    @TestHTTPResource
+    URL baseUrl;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void benchmarkReads() throws Exception {
+        String token = TestTokens.forUser(USER_ID);
+        for (int i = 0; i < 3; i++) {
+            given().auth().oauth2(token).contentType(ContentType.JSON)
+                    .body("{\"name\":\"Bench-" + USER_ID + "-" + i + "\",\"color\":\"#101010\"}")
+                    .when().post("/categories").then().statusCode(201);
+        }
+        String etag = given().auth().oauth2(token).when().get("/events").then().statusCode(200).extract().header("ETag");
+        given().auth().oauth2(token).when().get("/categories").then().statusCode(200);
+
+        HttpRequest revalidation = request("/events", token).header("If-None-Match", etag).build();
+        HttpRequest categories = request("/categories", token).build();
+
+        // Prima misura solo per scaldare JIT e connessioni
+        measure(revalidation, false);
+
+        report("304 revalidation, idle pool     ", measure(revalidation, false));
+        report("304 revalidation, saturated pool", measure(revalidation, true));
+        report("cached categories, idle pool     ", measure(categories, false));
+        report("cached categories, saturated pool", measure(categories, true));
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl.toString().replaceAll("/$", "") + path))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    /**
+     * Esegue la richiesta da CLIENTS thread per DURATION_MILLIS; con saturate tutti i worker
+     * restano occupati fino alla fine della finestra. Restituisce richieste completate nella
+     * finestra al secondo, p50 e p99 in millisecondi (comprese le richieste rimaste in coda).
+     */
+    private double[] measure(HttpRequest request, boolean saturate) throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        if (saturate) {
+            for (int i = 0; i < WORKERS; i++) {
+                Infrastructure.getDefaultWorkerPool().execute(() -> {
+                    try {
+                        release.await(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+        List<long[]> samples = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            long[] latencies = new long[100_000];
+            samples.add(latencies);
+            Thread thread = new Thread(() -> {
+                int n = 0;
+                while (System.nanoTime() < deadline && n < latencies.length - 1) {
+                    long started = System.nanoTime();
+                    try {
+                        client.send(request, HttpResponse.BodyHandlers.discarding());
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    long finished = System.nanoTime();
+                    latencies[++n] = finished - started;
+                    // Il primo elemento conta le richieste completate entro la finestra
+                    if (finished < deadline) {
+                        latencies[0]++;
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        Thread.sleep(DURATION_MILLIS);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long completed = 0;
+        long[] all = new long[0];
+        for (long[] latencies : samples) {
+            completed += latencies[0];
+            long[] taken = Arrays.stream(latencies, 1, latencies.length).filter(l -> l > 0).toArray();
+            long[] merged = Arrays.copyOf(all, all.length + taken.length);
+            System.arraycopy(taken, 0, merged, all.length, taken.length);
+            all = merged;
+        }
+        Arrays.sort(all);
+
+        return new double[] {
+                completed * 1000.0 / DURATION_MILLIS,
+                all[all.length / 2] / 1e6,
+                all[all.length * 99 / 100] / 1e6};
+    }
+
+    private static void report(String label, double[] result) {
+        LOG.infof("  %s: %8.0f req/s, p50 %7.2f ms, p99 %7.2f ms", label, result[0], result[1], result[2]);
+    }
+}
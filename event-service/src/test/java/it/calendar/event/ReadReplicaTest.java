@@ -0,0 +1,125 @@
+package it.calendar.event;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+
+/**
+ * Primario e replica su due database H2 distinti, senza replicazione: i dati scritti solo
+ * nella replica mostrano quale dei due ha servito la lettura.
+ */
+@QuarkusTest
+@TestProfile(ReadReplicaTest.SeparateReplica.class)
+class ReadReplicaTest {
+
+    public static class SeparateReplica implements QuarkusTestProfile {
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.datasource.replica.jdbc.url", "jdbc:h2:mem:event_db_replica_test;DB_CLOSE_DELAY=-1",
+                    "quarkus.flyway.replica.migrate-at-start", "true",
+                    "calendar.read-replica.read-your-writes", "1S");
+        }
+    }
+
+    @Inject
+    @DataSource("replica")
+    AgroalDataSource replica;
+
+    @Test
+    void testReadsAreServedByReplica() throws SQLException {
+        long userId = 5151L;
+        execute("insert into categories (id, name, color, userId) values (9100001, 'Replica-5151', '#000000', 5151)");
+        execute("insert into events (id, title, startDateTime, userId) values (9100001, 'Replica event', '2025-06-01 09:00:00', 5151)");
+
+        given()
+          .auth().oauth2(TestTokens.forUser(userId))
+          .when().get("/categories")
+          .then()
+             .statusCode(200)
+             .body("size()", is(1))
+             .body("[0].name", is("Replica-5151"));
+
+        given()
+          .auth().oauth2(TestTokens.forUser(userId))
+          .when().get("/events")
+          .then()
+             .statusCode(200)
+             .body("size()", is(1))
+             .body("[0].title", is("Replica event"));
+    }
+
+    @Test
+    void testOwnWritesAreReadFromPrimary() throws SQLException, InterruptedException {
+        long userId = 5252L;
+        execute("insert into events (id, title, startDateTime, userId) values (9100002, 'Replica event', '2025-06-01 09:00:00', 5252)");
+
+        given()
+          .auth().oauth2(TestTokens.forUser(userId))
+          .contentType(ContentType.JSON)
+          .body("{\"title\":\"Primary event\",\"startDateTime\":\"2025-06-02T09:00:00\"}")
+          .when().post("/events")
+          .then()
+             .statusCode(201);
+
+        given()
+          .auth().oauth2(TestTokens.forUser(userId))
+          .when().get("/events")
+          .then()
+             .statusCode(200)
+             .body("size()", is(1))
+             .body("[0].title", is("Primary event"));
+
+        // Trascorsa la finestra read-your-writes la replica, che non ha ricevuto la modifica,
+        // non serve ancora la lettura: il corpo resta coerente con l'ETag
+        Thread.sleep(1200);
+
+        String etag = given()
+          .auth().oauth2(TestTokens.forUser(userId))
+          .when().get("/events")
+          .then()
+             .statusCode(200)
+             .body("size()", is(1))
+             .body("[0].title", is("Primary event"))
+             .extract().header("ETag");
+
+        // Raggiunta la versione dell'utente, le letture tornano sulla replica
+        execute("insert into calendar_versions (userId, version) values (5252, 1)");
+
+        given()
+          .auth().oauth2(TestTokens.forUser(userId))
+          .header("If-None-Match", etag)
+          .when().get("/events")
+          .then()
+             .statusCode(304);
+
+        given()
+          .auth().oauth2(TestTokens.forUser(userId))
+          .when().get("/events")
+          .then()
+             .statusCode(200)
+             .body("size()", is(1))
+             .body("[0].title", is("Replica event"));
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
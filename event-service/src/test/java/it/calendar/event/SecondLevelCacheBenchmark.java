@@ -0,0 +1,160 @@
+package it.calendar.event;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import it.calendar.event.repository.CategoryRepository;
+import it.calendar.event.repository.EventRepository;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Carico di sola lettura sui repository (categorie dell'utente, categoria ed evento per id),
+ * eseguito una volta ignorando la cache di secondo livello e una volta usandola: misura i
+ * round trip verso il database per richiesta e la latenza.
+ *
+ * Non viene eseguito con i test normali (il nome non segue le convenzioni di surefire):
+ *
+ * {@code ./mvnw test -Dtest=SecondLevelCacheBenchmark}
+ */
+@QuarkusTest
+class SecondLevelCacheBenchmark {
+
+    private static final Logger LOG = Logger.getLogger(SecondLevelCacheBenchmark.class);
+
+    private static final long FIRST_ID = 30_000_000L;
+    private static final long FIRST_USER_ID = 960_000L;
+    private static final int USERS = 100;
+    private static final int CATEGORIES_PER_USER = 5;
+    private static final int EVENTS_PER_USER = 100;
+    private static final int REQUESTS = 5_000;
+
+    @Inject
+    CategoryRepository categoryRepository;
+
+    @Inject
+    EventRepository eventRepository;
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @BeforeEach
+    void seed() throws SQLException {
+        Random random = new Random(7);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement category = connection.prepareStatement(
+                     "insert into categories (id, name, color, userId) values (?, ?, ?, ?)");
+             PreparedStatement event = connection.prepareStatement(
+                     "insert into events (id, title, startDateTime, endDateTime, userId, category_id) values (?, ?, ?, ?, ?, ?)")) {
+            for (int user = 0; user < USERS; user++) {
+                for (int c = 0; c < CATEGORIES_PER_USER; c++) {
+                    category.setLong(1, categoryId(user, c));
+                    category.setString(2, "Bench-" + user + "-" + c);
+                    category.setString(3, "#000000");
+                    category.setLong(4, FIRST_USER_ID + user);
+                    category.addBatch();
+                }
+                for (int e = 0; e < EVENTS_PER_USER; e++) {
+                    LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(random.nextInt(24 * 365));
+                    event.setLong(1, eventId(user, e));
+                    event.setString(2, "Event " + e);
+                    event.setTimestamp(3, Timestamp.valueOf(start));
+                    event.setTimestamp(4, Timestamp.valueOf(start.plusHours(1)));
+                    event.setLong(5, FIRST_USER_ID + user);
+                    event.setLong(6, categoryId(user, e % CATEGORIES_PER_USER));
+                    event.addBatch();
+                }
+            }
+            category.executeBatch();
+            event.executeBatch();
+        }
+    }
+
+    @AfterEach
+    void cleanUp() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("delete from events where id >= " + FIRST_ID);
+            statement.execute("delete from categories where id >= " + FIRST_ID);
+        }
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    @Test
+    void benchmarkSecondLevelCache() {
+        double[] ignore = measure(CacheMode.IGNORE);
+        double[] normal = measure(CacheMode.NORMAL);
+
+        LOG.infof("%d read requests over %d users (3 lookups each)", REQUESTS, USERS);
+        LOG.infof("  without L2: %.2f statements/request, p50 %.3f ms, p99 %.3f ms", ignore[2], ignore[0], ignore[1]);
+        LOG.infof("  with L2:    %.2f statements/request, p50 %.3f ms, p99 %.3f ms", normal[2], normal[0], normal[1]);
+    }
+
+    /**
+     * Esegue le richieste e restituisce p50 e p99 in millisecondi e le istruzioni SQL per richiesta
+     */
+    private double[] measure(CacheMode cacheMode) {
+        Random random = new Random(11);
+        Statistics statistics = sessionFactory.getStatistics();
+        long[] nanos = new long[REQUESTS];
+        long statements = 0;
+
+        for (int r = -REQUESTS / 10; r < REQUESTS; r++) {
+            int user = random.nextInt(USERS);
+            int category = random.nextInt(CATEGORIES_PER_USER);
+            long categoryId = categoryId(user, category);
+            String categoryName = "Bench-" + user + "-" + category;
+            long eventId = eventId(user, random.nextInt(EVENTS_PER_USER));
+            Long userId = FIRST_USER_ID + user;
+
+            long prepared = statistics.getPrepareStatementCount();
+            long started = System.nanoTime();
+            QuarkusTransaction.requiringNew().run(() -> {
+                entityManager.unwrap(Session.class).setCacheMode(cacheMode);
+                categoryRepository.findByNameAndUserId(categoryName, userId);
+                categoryRepository.findByIdAndUserId(categoryId, userId);
+                eventRepository.findByIdAndUserId(eventId, userId);
+            });
+
+            // Le prime richieste servono solo a scaldare JIT e cache
+            if (r >= 0) {
+                nanos[r] = System.nanoTime() - started;
+                statements += statistics.getPrepareStatementCount() - prepared;
+            }
+        }
+
+        Arrays.sort(nanos);
+        return new double[] {nanos[REQUESTS / 2] / 1e6, nanos[REQUESTS * 99 / 100] / 1e6, (double) statements / REQUESTS};
+    }
+
+    private static long categoryId(int user, int index) {
+        return FIRST_ID + (long) user * CATEGORIES_PER_USER + index;
+    }
+
+    private static long eventId(int user, int index) {
+        return FIRST_ID + 1_000_000L + (long) user * EVENTS_PER_USER + index;
+    }
+}
@@ -0,0 +1,33 @@
+package it.calendar.event;
+
+import io.smallrye.jwt.build.Jwt;
+import it.calendar.common.security.InternalIdentity;
+import it.calendar.common.security.InternalIdentitySigner;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Token firmati con la chiave di test, come quelli emessi da auth-service
+ */
+final class TestTokens {
+
+    private TestTokens() {
+    }
+
+    static String forUser(Long userId) {
+        return Jwt.issuer("https://calendar-app.example.com")
+                .subject(userId.toString())
+                .groups(Set.of("user"))
+                .claim("userId", userId.toString())
+                .sign();
+    }
+
+    /**
+     * Header X-Calendar-Identity firmato con il segreto del profilo test, come quello del gateway
+     */
+    static String internalIdentity(Long userId, long expiresAt) {
+        return new InternalIdentitySigner("test-internal-identity-secret")
+                .sign(new InternalIdentity(userId.toString(), List.of("user"), expiresAt));
+    }
+}
@@ -0,0 +1,187 @@
+package it.calendar.event;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Confronto tra pool dei worker e thread virtuali (quarkus.virtual-threads.enabled) su endpoint
+ * bloccanti che passano da JDBC: GET /events (EventResource, @RunOnVirtualThread) e le letture
+ * delle categorie non in cache, in egual numero. Misura throughput, latenza e numero di pinning
+ * rilevati da PinnedThreadMonitor. La cache delle categorie scade dopo 1 ms, quindi quasi ogni
+ * richiesta va al database.
+ *
+ * Non viene eseguito con i test normali (il nome non segue le convenzioni di surefire); le due
+ * modalità girano una dopo l'altra, ognuna con la propria istanza dell'applicazione:
+ *
+ * {@code ./mvnw test -Dtest='ThreadModeBenchmark*'}
+ */
+abstract class ThreadModeBenchmark {
+
+    private static final Logger LOG = Logger.getLogger(ThreadModeBenchmark.class);
+
+    private static final long FIRST_USER_ID = 7000L;
+    private static final int USERS = 32;
+    private static final int CATEGORIES_PER_USER = 5;
+    private static final int EVENTS_PER_USER = 20;
+    private static final int WORKERS = 16;
+    private static final int CLIENTS = 64;
+    private static final long DURATION_MILLIS = 3_000;
+
+    private static Map<String, String> config(boolean virtualThreads) {
+        return Map.of(
+                "quarkus.virtual-threads.enabled", String.valueOf(virtualThreads),
+                "quarkus.thread-pool.max-threads", String.valueOf(WORKERS),
+                "quarkus.cache.caffeine.\"user-categories\".expire-after-write", "1MS");
+    }
+
+    public static class PlatformMode implements QuarkusTestProfile {
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return config(false);
+        }
+    }
+
+    public static class VirtualMode implements QuarkusTestProfile {
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return config(true);
+        }
+    }
+
+    @QuarkusTest
+    @TestProfile(PlatformMode.class)
+    static class OnPlatformThreads extends ThreadModeBenchmark {
+    }
+
+    @QuarkusTest
+    @TestProfile(VirtualMode.class)
+    static class OnVirtualThreads extends ThreadModeBenchmark {
+    }
+
+    @TestHTTPResource
+    URL baseUrl;
+
+    @Inject
+    PinnedThreadMonitor pinnedThreadMonitor;
+
+    @ConfigProperty(name = "quarkus.virtual-threads.enabled")
+    boolean virtualThreads;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void benchmarkBlockingReads() throws Exception {
+        List<HttpRequest> requests = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            long userId = FIRST_USER_ID + u;
+            String token = TestTokens.forUser(userId);
+            // Gli utenti sono condivisi tra le due modalità: le categorie vengono create una sola volta
+            int existing = given().auth().oauth2(token).when().get("/categories").then().statusCode(200)
+                    .extract().jsonPath().getList("$").size();
+            for (int i = existing; i < CATEGORIES_PER_USER; i++) {
+                given().auth().oauth2(token).contentType(ContentType.JSON)
+                        .body("{\"name\":\"Mode-" + userId + "-" + i + "\",\"color\":\"#202020\"}")
+                        .when().post("/categories").then().statusCode(201);
+            }
+            int events = given().auth().oauth2(token).when().get("/events").then().statusCode(200)
+                    .extract().jsonPath().getList("$").size();
+            for (int i = events; i < EVENTS_PER_USER; i++) {
+                given().auth().oauth2(token).contentType(ContentType.JSON)
+                        .body("{\"title\":\"Mode-" + i + "\",\"startDateTime\":\"2025-03-" + String.format("%02d", i + 1) + "T09:00:00\"}")
+                        .when().post("/events").then().statusCode(201);
+            }
+            for (String path : List.of("/events", "/categories")) {
+                requests.add(HttpRequest.newBuilder(URI.create(baseUrl.toString().replaceAll("/$", "") + path))
+                        .header("Authorization", "Bearer " + token)
+                        .build());
+            }
+        }
+
+        // Prima misura solo per scaldare JIT e connessioni
+        measure(requests);
+
+        long pinnedBefore = pinnedThreadMonitor.pinnedCount();
+        double[] result = measure(requests);
+        long pinned = pinnedThreadMonitor.pinnedCount() - pinnedBefore;
+
+        LOG.infof("  %s threads (Java %d), %d workers, %d clients: %8.0f req/s, p50 %7.2f ms, p99 %7.2f ms, %d pinned",
+                virtualThreads ? "virtual " : "platform", Runtime.version().feature(), WORKERS, CLIENTS,
+                result[0], result[1], result[2], pinned);
+    }
+
+    /**
+     * Esegue le richieste da CLIENTS thread per DURATION_MILLIS, ogni client con il token di un
+     * utente. Restituisce richieste completate nella finestra al secondo, p50 e p99 in millisecondi.
+     */
+    private double[] measure(List<HttpRequest> requests) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+        List<long[]> samples = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            HttpRequest request = requests.get(c % requests.size());
+            long[] latencies = new long[100_000];
+            samples.add(latencies);
+            Thread thread = new Thread(() -> {
+                int n = 0;
+                while (System.nanoTime() < deadline && n < latencies.length - 1) {
+                    long started = System.nanoTime();
+                    try {
+                        client.send(request, HttpResponse.BodyHandlers.discarding());
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    long finished = System.nanoTime();
+                    latencies[++n] = finished - started;
+                    // Il primo elemento conta le richieste completate entro la finestra
+                    if (finished < deadline) {
+                        latencies[0]++;
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long completed = 0;
+        long[] all = new long[0];
+        for (long[] latencies : samples) {
+            completed += latencies[0];
+            long[] taken = Arrays.stream(latencies, 1, latencies.length).filter(l -> l > 0).toArray();
+            long[] merged = Arrays.copyOf(all, all.length + taken.length);
+            System.arraycopy(taken, 0, merged, all.length, taken.length);
+            all = merged;
+        }
+        Arrays.sort(all);
+
+        return new double[] {
+                completed * 1000.0 / DURATION_MILLIS,
+                all[all.length / 2] / 1e6,
+                all[all.length * 99 / 100] / 1e6};
+    }
+}
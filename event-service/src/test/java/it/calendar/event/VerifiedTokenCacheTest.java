@@ -0,0 +1,37 @@
+package it.calendar.event;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.quarkus.test.junit.QuarkusTest;
+import it.calendar.common.security.CachingJWTCallerPrincipalFactory;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+class VerifiedTokenCacheTest {
+
+    private static final Long USER_ID = 4949L;
+
+    @Inject
+    CachingJWTCallerPrincipalFactory factory;
+
+    @Test
+    void testTokenIsVerifiedOnce() {
+        String token = TestTokens.forUser(USER_ID);
+        CacheStats before = factory.stats();
+
+        for (int i = 0; i < 3; i++) {
+            given().auth().oauth2(token).when().get("/categories").then().statusCode(200);
+        }
+
+        CacheStats stats = factory.stats().minus(before);
+        assertEquals(1, stats.missCount());
+        assertEquals(2, stats.hitCount());
+
+        // Una firma alterata non corrisponde a nessun token in cache e viene rifiutata
+        String tampered = token.substring(0, token.length() - 4) + (token.endsWith("AAAA") ? "BBBB" : "AAAA");
+        given().auth().oauth2(tampered).when().get("/categories").then().statusCode(401);
+    }
+}
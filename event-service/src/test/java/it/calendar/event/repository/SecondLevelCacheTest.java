@@ -0,0 +1,81 @@
+package it.calendar.event.repository;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import it.calendar.event.model.Category;
+import it.calendar.event.model.Event;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class SecondLevelCacheTest {
+
+    private static final Long USER_ID = 4848L;
+
+    @Inject
+    CategoryRepository categoryRepository;
+
+    @Inject
+    EventRepository eventRepository;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Test
+    void testRepeatedLookupsSkipTheDatabase() {
+        Long[] ids = QuarkusTransaction.requiringNew().call(() -> {
+            Category category = new Category("L2-" + USER_ID, "#010203", USER_ID);
+            categoryRepository.persist(category);
+            Event event = new Event("L2", null, LocalDateTime.of(2025, 10, 1, 9, 0), null, USER_ID, category);
+            eventRepository.persist(event);
+            return new Long[] {category.id, event.id};
+        });
+
+        // Le altre classi di test scrivono sulle stesse tabelle: si parte da regioni vuote, così né
+        // le loro voci né i loro timestamp di invalidazione delle tabelle influenzano la misura
+        CacheImplementor cache = sessionFactory.unwrap(SessionFactoryImplementor.class).getCache();
+        cache.evictAllRegions();
+        cache.getTimestampsCache().getRegion().clear();
+
+        // Prima lettura: popola le regioni delle query
+        QuarkusTransaction.requiringNew().run(() -> {
+            categoryRepository.findByNameAndUserId("L2-" + USER_ID, USER_ID);
+            categoryRepository.findByIdAndUserId(ids[0], USER_ID);
+            eventRepository.findByIdAndUserId(ids[1], USER_ID);
+        });
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            assertEquals(ids[0], categoryRepository.findByNameAndUserId("L2-" + USER_ID, USER_ID).orElseThrow().id);
+            Event event = eventRepository.findByIdAndUserId(ids[1], USER_ID).orElseThrow();
+            assertEquals("L2-" + USER_ID, event.category.name);
+            assertEquals(ids[0], categoryRepository.findByIdAndUserId(ids[0], USER_ID).orElseThrow().id);
+        });
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getQueryCacheHitCount() == 3);
+
+        // L'eliminazione rimuove solo la voce dell'evento, e la query successiva torna al database
+        QuarkusTransaction.requiringNew().run(() -> assertTrue(eventRepository.deleteByIdAndUserId(ids[1], USER_ID)));
+        assertTrue(QuarkusTransaction.requiringNew().call(() -> eventRepository.findByIdAndUserId(ids[1], USER_ID)).isEmpty());
+
+        given()
+          .when().get("/q/metrics")
+          .then()
+             .statusCode(200)
+             .body(containsString("hibernate_second_level_cache_requests"));
+    }
+}
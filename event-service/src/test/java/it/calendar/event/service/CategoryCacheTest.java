@@ -0,0 +1,60 @@
+package it.calendar.event.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import it.calendar.event.model.Category;
+import it.calendar.event.model.Event;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+class CategoryCacheTest {
+
+    private static final Long USER_ID = 4747L;
+
+    @Inject
+    CategoryService categoryService;
+
+    @Inject
+    EventService eventService;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Test
+    void testEventValidationIsServedFromCache() {
+        Category work = QuarkusTransaction.requiringNew().call(() ->
+                categoryService.createCategory("Cached-" + USER_ID, "#abcdef", USER_ID));
+        assertEquals(1, categoryService.getCategoriesByUserId(USER_ID).size());
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        Event event = QuarkusTransaction.requiringNew().call(() ->
+                eventService.createEvent("Cached", null, LocalDateTime.of(2025, 9, 1, 9, 0), null,
+                        USER_ID, work.id, null, null));
+
+        assertEquals(0, statistics.getQueryExecutionCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals("Cached-" + USER_ID, event.category.name);
+
+        // Le modifiche invalidano la cache dell'utente
+        QuarkusTransaction.requiringNew().run(() ->
+                categoryService.updateCategory(work.id, "Renamed-" + USER_ID, "#abcdef", USER_ID));
+        assertEquals("Renamed-" + USER_ID, categoryService.getCachedCategory(work.id, USER_ID).orElseThrow().name);
+
+        given()
+          .when().get("/q/metrics")
+          .then()
+             .statusCode(200)
+             .body(containsString("cache_gets_total{cache=\"user-categories\""));
+    }
+}
@@ -0,0 +1,152 @@
+package it.calendar.event.service;
+
+import it.calendar.event.service.EventIntervalIndex.Interval;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EventIntervalIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 5, 1, 0, 0);
+
+    private static EventIntervalIndex newIndex() {
+        return new EventIntervalIndex(1000, Duration.ofMinutes(30));
+    }
+
+    @Test
+    void testMultiDayEventStartingBeforeWindowIsReturned() {
+        EventIntervalIndex index = newIndex();
+        List<Interval> intervals = List.of(
+                new Interval(1, BASE.minusDays(3), BASE.plusDays(2)),
+                new Interval(2, BASE.plusDays(1), BASE.plusDays(1).plusHours(1)),
+                new Interval(3, BASE.plusDays(10), null));
+
+        long[] ids = index.findOverlapping(1L, BASE, BASE.plusDays(7), () -> intervals);
+
+        assertArrayEquals(new long[] {1, 2}, ids);
+    }
+
+    @Test
+    void testPutAndRemoveKeepIndexInSync() {
+        EventIntervalIndex index = newIndex();
+        index.findOverlapping(1L, BASE, BASE, () -> new ArrayList<>(List.of(new Interval(1, BASE, BASE.plusHours(1)))));
+
+        index.put(1L, 2L, BASE.plusHours(2), BASE.plusHours(3));
+        index.put(1L, 1L, BASE.plusDays(5), BASE.plusDays(5).plusHours(1));
+        index.remove(1L, 2L);
+
+        assertArrayEquals(new long[] {}, index.findOverlapping(1L, BASE, BASE.plusDays(1), List::of));
+        assertArrayEquals(new long[] {1}, index.findOverlapping(1L, BASE, BASE.plusDays(6), List::of));
+    }
+
+    @Test
+    void testLoadRacingWithWriteIsNotInstalled() {
+        EventIntervalIndex index = newIndex();
+        AtomicInteger loads = new AtomicInteger();
+
+        // La scrittura termina mentre il caricamento ha già letto il database senza il nuovo evento
+        index.findOverlapping(1L, BASE, BASE.plusDays(1), () -> {
+            loads.incrementAndGet();
+            index.put(1L, 2L, BASE.plusHours(2), BASE.plusHours(3));
+            return List.of(new Interval(1, BASE, BASE.plusHours(1)));
+        });
+
+        long[] ids = index.findOverlapping(1L, BASE, BASE.plusDays(1), () -> {
+            loads.incrementAndGet();
+            return List.of(new Interval(1, BASE, BASE.plusHours(1)), new Interval(2, BASE.plusHours(2), BASE.plusHours(3)));
+        });
+
+        assertArrayEquals(new long[] {1, 2}, ids);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testWriteOfAnotherUserDoesNotDiscardLoad() {
+        EventIntervalIndex index = newIndex();
+        AtomicInteger loads = new AtomicInteger();
+
+        index.findOverlapping(1L, BASE, BASE.plusDays(1), () -> {
+            loads.incrementAndGet();
+            index.put(2L, 5L, BASE, BASE.plusHours(1));
+            return List.of(new Interval(1, BASE, BASE.plusHours(1)));
+        });
+        index.findOverlapping(1L, BASE, BASE.plusDays(1), () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testExpiredIndexIsReloaded() {
+        EventIntervalIndex index = new EventIntervalIndex(1000, Duration.ZERO);
+        AtomicInteger loads = new AtomicInteger();
+
+        index.findOverlapping(1L, BASE, BASE.plusDays(1), () -> {
+            loads.incrementAndGet();
+            return List.of(new Interval(1, BASE, BASE.plusHours(1)));
+        });
+        long[] ids = index.findOverlapping(1L, BASE, BASE.plusDays(1), () -> {
+            loads.incrementAndGet();
+            return List.of(new Interval(2, BASE, BASE.plusHours(1)));
+        });
+
+        assertArrayEquals(new long[] {2}, ids);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testConflictsIgnoreTouchingEventsAndSeparateSeries() {
+        EventIntervalIndex index = newIndex();
+        List<Interval> intervals = List.of(
+                new Interval(1, BASE.withHour(9), BASE.withHour(10)),
+                new Interval(2, BASE.withHour(10), BASE.withHour(11)),
+                new Interval(3, BASE.withHour(10).withMinute(30), null),
+                new Interval(4, BASE.minusDays(30), BASE.plusDays(30), true),
+                new Interval(5, BASE.withHour(11), BASE.withHour(12)));
+
+        EventIntervalIndex.Conflicts conflicts = index.findConflicts(1L, BASE.withHour(10), BASE.withHour(11), () -> intervals);
+
+        assertArrayEquals(new long[] {2}, conflicts.eventIds());
+        assertArrayEquals(new long[] {4}, conflicts.seriesIds());
+    }
+
+    @Test
+    void testMatchesLinearScan() {
+        Random random = new Random(42);
+        List<Interval> intervals = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime start = BASE.plusHours(random.nextInt(24 * 90));
+            LocalDateTime end = random.nextInt(10) == 0 ? null : start.plusHours(random.nextInt(24 * 5));
+            intervals.add(new Interval(i, start, end));
+        }
+
+        EventIntervalIndex index = newIndex();
+        for (int q = 0; q < 200; q++) {
+            LocalDateTime from = BASE.plusHours(random.nextInt(24 * 90));
+            LocalDateTime to = from.plusHours(random.nextInt(24 * 31));
+
+            long[] expected = intervals.stream()
+                    .filter(i -> !i.start().isAfter(to)
+                            && !EventIntervalIndex.endOrStart(i.start(), i.end()).isBefore(from))
+                    .sorted((a, b) -> a.start().compareTo(b.start()) != 0
+                            ? a.start().compareTo(b.start()) : Long.compare(a.id(), b.id()))
+                    .mapToLong(Interval::id)
+                    .toArray();
+
+            long[] actual = index.findOverlapping(1L, from, to, () -> intervals);
+
+            assertArrayEquals(expected, actual, "window " + from + " - " + to + ": " + Arrays.toString(actual));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package it.calendar.event.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecurrenceRuleTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 31, 9, 0);
+
+    @Test
+    void testMonthlySkipsMissingDays() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY;COUNT=3");
+
+        assertEquals(List.of(START, START.withMonth(3), START.withMonth(5)), take(rule.occurrences(START, START), 10));
+        assertEquals(START.withMonth(5), rule.lastStart(START));
+    }
+
+    @Test
+    void testWeeklyByDayStartsFromWindow() {
+        // 31/01/2025 è un venerdì
+        RecurrenceRule rule = RecurrenceRule.parse("RRULE:FREQ=WEEKLY;BYDAY=MO,FR");
+        LocalDateTime notBefore = LocalDateTime.of(2030, 6, 4, 0, 0);
+
+        assertEquals(List.of(LocalDateTime.of(2030, 6, 7, 9, 0), LocalDateTime.of(2030, 6, 10, 9, 0)),
+                take(rule.occurrences(START, notBefore), 2));
+        assertEquals(LocalDateTime.MAX, RecurrenceRule.seriesEnd(START, START.plusHours(1), "FREQ=WEEKLY;BYDAY=MO,FR"));
+    }
+
+    @Test
+    void testInvalidRulesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=HOURLY"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=DAILY;COUNT=2;UNTIL=20250301"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=DAILY;BYDAY=MO"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=YEARLY;INTERVAL=1001"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("FREQ=YEARLY;INTERVAL=99999999999"));
+    }
+
+    @Test
+    void testSeriesEndsAtLastRepresentableDate() {
+        LocalDateTime farStart = LocalDateTime.of(999_999_000, 1, 1, 9, 0);
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=YEARLY;INTERVAL=1000;COUNT=5");
+
+        assertEquals(List.of(farStart), take(rule.occurrences(farStart, farStart), 10));
+        assertEquals(farStart.plusHours(1), RecurrenceRule.seriesEnd(farStart, farStart.plusHours(1), "FREQ=YEARLY;INTERVAL=1000;COUNT=5"));
+    }
+
+    private static List<LocalDateTime> take(Iterator<LocalDateTime> iterator, int max) {
+        List<LocalDateTime> values = new ArrayList<>();
+        while (iterator.hasNext() && values.size() < max) {
+            values.add(iterator.next());
+        }
+        return values;
+    }
+}
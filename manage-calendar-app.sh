@@ -78,6 +78,13 @@ sync_jwt_keys() {
     sudo kubectl delete configmap jwt-keys -n calendar-app --ignore-not-found=true
     sudo kubectl create configmap jwt-keys --from-file=publicKey.pem=jwt-keys/publicKey.pem --from-file=privateKey.pem=jwt-keys/privateKey.pem -n calendar-app
     
+    # 2.1 Segreto condiviso tra api-gateway ed event-service per l'identità interna (X-Calendar-Identity).
+    # Viene creato solo la prima volta: rigenerarlo a ogni esecuzione invaliderebbe le identità
+    # firmate dai pod non ancora riavviati
+    echo "2.1 Creazione del segreto per l'identità interna (se assente)..."
+    sudo kubectl get secret internal-identity -n calendar-app >/dev/null 2>&1 || \
+        sudo kubectl create secret generic internal-identity --from-literal=secret="$(openssl rand -base64 32)" -n calendar-app
+    
     # 3. Aggiornamento dei pod per utilizzare lo stesso ConfigMap
     echo "3. Aggiornamento dei pod per utilizzare lo stesso ConfigMap..."
     
@@ -127,6 +134,12 @@ spec:
           value: /deployments/config/jwt/publicKey.pem
         - name: MP_JWT_VERIFY_ISSUER
           value: https://calendar-app.example.com
+        - name: CALENDAR_INTERNAL_IDENTITY_SECRET
+          valueFrom:
+            secretKeyRef:
+              name: internal-identity
+              key: secret
+              optional: true
 EOF
     
     sudo kubectl patch deployment event-service -n calendar-app --patch "$(cat event-service-patch.yaml)" 2>/dev/null || echo "AVVISO: Impossibile aggiornare event-service"
@@ -151,6 +164,12 @@ spec:
           value: /deployments/config/jwt/publicKey.pem
         - name: MP_JWT_VERIFY_ISSUER
           value: https://calendar-app.example.com
+        - name: CALENDAR_INTERNAL_IDENTITY_SECRET
+          valueFrom:
+            secretKeyRef:
+              name: internal-identity
+              key: secret
+              optional: true
 EOF
     
     sudo kubectl patch deployment api-gateway -n calendar-app --patch "$(cat api-gateway-patch.yaml)" 2>/dev/null || echo "AVVISO: Impossibile aggiornare api-gateway"
@@ -176,6 +195,12 @@ deploy_backend() {
     
     # Costruisci e importa le immagini Docker
     echo "3. Costruzione e importazione delle immagini Docker..."
+    
+    # Le immagini copiano target/quarkus-app di ogni servizio: la build dalla radice installa
+    # prima calendar-common, da cui dipendono api-gateway ed event-service (richiede JDK 21)
+    echo "  - Compilazione dei moduli Maven..."
+    mvn -q install -DskipTests
+    
     for service in auth-service event-service api-gateway; do
         echo "  - Costruzione immagine per $service..."
         cd $service